@@ -0,0 +1,197 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Breadth-first searches that compute hop distances (the fewest edges
+ *  on any path) rather than calling back on each vertex, for analytics
+ *  over large graphs.  Results are arrays indexed by G.index(v), with
+ *  -1 for vertices not reachable from the source.  They run over a
+ *  CsrGraph snapshot of the graph (G.freeze(), which is free if G is
+ *  already frozen), and the graph must not change while they run.
+ *  @author Ron Desmond
+ */
+public final class BreadthFirstSearch {
+
+    /** Returns the hop distance from SOURCE to each vertex of G, indexed
+     *  by G.index, or -1 for vertices unreachable from SOURCE.  This is a
+     *  direction-optimizing search: while the frontier is small, it
+     *  expands the frontier top-down through outgoing edges, as
+     *  Traversal.breadthFirstTraverse does, but once the edges leaving
+     *  the frontier outnumber a fraction of those not yet explored, it
+     *  switches to bottom-up steps in which each unreached vertex scans
+     *  its incoming edges and stops at the first one from the frontier.
+     *  On low-diameter graphs, whose middle levels hold most of the
+     *  vertices, the bottom-up steps examine far fewer edges.  It
+     *  returns to top-down steps when the frontier shrinks again. */
+    public static <VLabel, ELabel> int[]
+    hopDistances(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex source) {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int n = csr.vertexSize();
+        int s = csr.index(source);
+        if (s < 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        int[] depth = new int[n];
+        int[] frontier = new int[n], next = new int[n];
+        depth[s] = 1;
+        frontier[0] = s;
+        int size = 1;
+        long frontierEdges = csr.outStart(s + 1) - csr.outStart(s);
+        long unexploredEdges = csr.outStart(n) - frontierEdges;
+        boolean bottomUp = false;
+        for (int level = 1; size > 0; level += 1) {
+            if (!bottomUp && frontierEdges > unexploredEdges / TO_BOTTOM_UP) {
+                bottomUp = true;
+            } else if (bottomUp && size < n / TO_TOP_DOWN) {
+                bottomUp = false;
+            }
+            int nextSize = 0;
+            if (bottomUp) {
+                for (int v = 0; v < n; v += 1) {
+                    if (depth[v] != 0) {
+                        continue;
+                    }
+                    for (int k = csr.inStart(v); k < csr.inStart(v + 1);
+                         k += 1) {
+                        if (depth[csr.inSource(k)] == level) {
+                            depth[v] = level + 1;
+                            next[nextSize] = v;
+                            nextSize += 1;
+                            break;
+                        }
+                    }
+                }
+            } else {
+                for (int j = 0; j < size; j += 1) {
+                    int u = frontier[j];
+                    for (int k = csr.outStart(u); k < csr.outStart(u + 1);
+                         k += 1) {
+                        int w = csr.outTarget(k);
+                        if (depth[w] == 0) {
+                            depth[w] = level + 1;
+                            next[nextSize] = w;
+                            nextSize += 1;
+                        }
+                    }
+                }
+            }
+            int[] tmp = frontier;
+            frontier = next;
+            next = tmp;
+            size = nextSize;
+            frontierEdges = 0;
+            for (int j = 0; j < size; j += 1) {
+                frontierEdges +=
+                    csr.outStart(frontier[j] + 1) - csr.outStart(frontier[j]);
+            }
+            unexploredEdges -= frontierEdges;
+        }
+        for (int v = 0; v < n; v += 1) {
+            depth[v] -= 1;
+        }
+        return depth;
+    }
+
+    /** Returns the hop distance from SOURCE to each vertex of G, indexed
+     *  by G.index, or -1 for vertices unreachable from SOURCE.  Each
+     *  level of the search is expanded in parallel on POOL: the frontier
+     *  is cut into chunks, each chunk collects the vertices it discovers
+     *  in its own buffer, and a vertex is claimed for the next level by
+     *  atomically setting its distance, so every vertex joins exactly
+     *  one frontier. */
+    public static <VLabel, ELabel> int[]
+    hopDistances(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex source,
+                 ForkJoinPool pool) {
+        final CsrGraph<VLabel, ELabel> csr = G.freeze();
+        final int n = csr.vertexSize();
+        int s = csr.index(source);
+        if (s < 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        final AtomicIntegerArray depth = new AtomicIntegerArray(n);
+        depth.set(s, 1);
+        int[] frontier = new int[] { s };
+        int size = 1;
+        IntList[] found = new IntList[0];
+        for (int level = 1; size > 0; level += 1) {
+            final int[] cur = frontier;
+            final int curSize = size;
+            final int next = level + 1;
+            int nchunks = Parallel.chunks(curSize, FRONTIER_GRAIN);
+            if (found.length < nchunks) {
+                IntList[] more = new IntList[Math.max(nchunks,
+                                                      2 * found.length)];
+                System.arraycopy(found, 0, more, 0, found.length);
+                for (int c = found.length; c < more.length; c += 1) {
+                    more[c] = new IntList();
+                }
+                found = more;
+            }
+            final IntList[] buffers = found;
+            Parallel.forRange(pool, nchunks, 1, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int c = lo; c < hi; c += 1) {
+                            IntList out = buffers[c];
+                            out.clear();
+                            int end = Math.min(curSize,
+                                               (c + 1) * FRONTIER_GRAIN);
+                            for (int k = c * FRONTIER_GRAIN; k < end; k += 1) {
+                                claimSuccessors(csr, depth, cur[k], next,
+                                                out);
+                            }
+                        }
+                    }
+                });
+            size = 0;
+            for (int c = 0; c < nchunks; c += 1) {
+                size += buffers[c].size();
+            }
+            frontier = new int[size];
+            int k = 0;
+            for (int c = 0; c < nchunks; c += 1) {
+                buffers[c].copyInto(frontier, k);
+                k += buffers[c].size();
+            }
+        }
+        final int[] result = new int[n];
+        Parallel.forRange(pool, n, COPY_GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int i = lo; i < hi; i += 1) {
+                        result[i] = depth.get(i) - 1;
+                    }
+                }
+            });
+        return result;
+    }
+
+    /** Adds to OUT each successor of vertex U in G that this call claims
+     *  by changing its entry in DEPTH from 0 (unreached) to LEVEL. */
+    private static void claimSuccessors(CsrGraph<?, ?> G,
+                                        AtomicIntegerArray depth, int u,
+                                        int level, IntList out) {
+        for (int k = G.outStart(u); k < G.outStart(u + 1); k += 1) {
+            int w = G.outTarget(k);
+            if (depth.get(w) == 0 && depth.compareAndSet(w, 0, level)) {
+                out.add(w);
+            }
+        }
+    }
+
+    /** A top-down search switches to bottom-up once the frontier has
+     *  more than 1/TO_BOTTOM_UP of the unexplored outgoing edges. */
+    private static final int TO_BOTTOM_UP = 14;
+    /** A bottom-up search switches to top-down once the frontier has
+     *  fewer than 1/TO_TOP_DOWN of the vertices. */
+    private static final int TO_TOP_DOWN = 24;
+    /** Number of frontier vertices expanded by one task. */
+    private static final int FRONTIER_GRAIN = 1024;
+    /** Number of distances copied out by one task. */
+    private static final int COPY_GRAIN = 1 << 16;
+
+    /** Not instantiable. */
+    private BreadthFirstSearch() {
+    }
+}
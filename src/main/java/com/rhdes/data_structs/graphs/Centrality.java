@@ -0,0 +1,340 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Centrality measures based on shortest paths, where the length of a
+ *  path is its number of edges.  All take paths in the direction of the
+ *  edges in a directed graph, and in either direction in an undirected
+ *  one.  Results are indexed by G.index(v).  Each method runs one
+ *  breadth-first search per source vertex over a CsrGraph snapshot of
+ *  the graph (G.freeze()), which must not change meanwhile, spreading
+ *  the sources across the threads of a pool.  Each thread claims
+ *  sources as it becomes free and works on its own arrays, which are
+ *  combined only at the end.
+ *  @author Ron Desmond
+ */
+public final class Centrality {
+
+    /** Returns the betweenness centrality of each vertex v of G: the sum
+     *  over all pairs of other vertices s, t of the fraction of shortest
+     *  paths from s to t that pass through v.  In an undirected graph,
+     *  each unordered pair counts once.  Uses Brandes' algorithm, which
+     *  takes O(VE) time, on POOL. */
+    public static <VLabel, ELabel> double[]
+    betweenness(Graph<VLabel, ELabel> G, ForkJoinPool pool) {
+        int n = G.vertexSize();
+        int[] sources = new int[n];
+        for (int s = 0; s < n; s += 1) {
+            sources[s] = s;
+        }
+        return betweenness(G.freeze(), sources,
+                           G.isDirected() ? 1.0 : 0.5, pool);
+    }
+
+    /** Returns an estimate of the betweenness centrality of each vertex
+     *  of G, as given by betweenness, from the dependencies on SAMPLES
+     *  source vertices chosen uniformly at random (with replacement)
+     *  using SEED, scaled up by N/SAMPLES for a graph of N vertices.  The
+     *  estimates are unbiased, and take time proportional to SAMPLES
+     *  rather than N.  With sampleSize(N, EPSILON, DELTA) samples, all
+     *  the estimates are within EPSILON * N * (N - 2) of the exact
+     *  values with probability at least 1 - DELTA. */
+    public static <VLabel, ELabel> double[]
+    approximateBetweenness(Graph<VLabel, ELabel> G, int samples, long seed,
+                           ForkJoinPool pool) {
+        int n = G.vertexSize();
+        if (n == 0 || samples <= 0) {
+            return new double[n];
+        }
+        Random rand = new Random(seed);
+        int[] sources = new int[samples];
+        for (int k = 0; k < samples; k += 1) {
+            sources[k] = rand.nextInt(n);
+        }
+        double scale = (double) n / samples;
+        return betweenness(G.freeze(), sources,
+                           G.isDirected() ? scale : 0.5 * scale, pool);
+    }
+
+    /** Returns the number of samples approximateBetweenness needs so
+     *  that, for a graph of N vertices, its estimates are all within
+     *  EPSILON * N * (N - 2) of the exact betweenness with probability
+     *  at least 1 - DELTA.  Each sample contributes between 0 and N - 2
+     *  to each vertex's sum, so by Hoeffding's inequality and a union
+     *  bound over the N vertices, ln(2N / DELTA) / (2 EPSILON^2) samples
+     *  suffice. */
+    public static int sampleSize(int n, double epsilon, double delta) {
+        return (int) Math.ceil(Math.log(2.0 * Math.max(n, 1) / delta)
+                               / (2.0 * epsilon * epsilon));
+    }
+
+    /** Returns the closeness centrality of each vertex v of G: (r - 1) /
+     *  d, where r is the number of vertices reachable from v (including
+     *  v) and d is the sum of their distances from v, or 0 if v reaches
+     *  no other vertex.  Computed with one search per vertex on POOL. */
+    public static <VLabel, ELabel> double[]
+    closeness(Graph<VLabel, ELabel> G, ForkJoinPool pool) {
+        return distanceMeasure(G.freeze(), false, pool);
+    }
+
+    /** Returns the harmonic centrality of each vertex v of G: the sum of
+     *  1/d(v, w) over all vertices w other than v reachable from v, where
+     *  d(v, w) is the distance from v to w.  Unlike closeness, this is
+     *  meaningful in graphs that are not strongly connected.  Computed
+     *  with one search per vertex on POOL. */
+    public static <VLabel, ELabel> double[]
+    harmonic(Graph<VLabel, ELabel> G, ForkJoinPool pool) {
+        return distanceMeasure(G.freeze(), true, pool);
+    }
+
+    /** Returns SCALE times the sum of the dependencies of the vertices of
+     *  G on each of SOURCES (counting repetitions), computed on POOL.
+     *  Each worker claims sources from a shared counter until none are
+     *  left, searching from each with its own Brandes workspace and
+     *  adding into its own accumulator, which it allocates only once it
+     *  has a source to process. */
+    private static double[] betweenness(final CsrGraph<?, ?> G,
+                                        final int[] sources, double scale,
+                                        ForkJoinPool pool) {
+        final int n = G.vertexSize();
+        int nworkers = workers(sources.length, pool);
+        final double[][] partial = new double[nworkers][];
+        final AtomicInteger next = new AtomicInteger();
+        Parallel.forRange(pool, nworkers, 1, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int t = lo; t < hi; t += 1) {
+                        int k = next.getAndIncrement();
+                        if (k >= sources.length) {
+                            continue;
+                        }
+                        Brandes search = new Brandes(G);
+                        double[] acc = new double[n];
+                        for (; k < sources.length;
+                             k = next.getAndIncrement()) {
+                            search.run(sources[k]);
+                            search.accumulate(acc);
+                        }
+                        partial[t] = acc;
+                    }
+                }
+            });
+        return sum(partial, n, scale, pool);
+    }
+
+    /** Returns harmonic or, if HARMONIC is false, closeness centrality
+     *  for each vertex of G, computed on POOL, with workers claiming
+     *  sources as for betweenness. */
+    private static double[] distanceMeasure(final CsrGraph<?, ?> G,
+                                            final boolean harmonic,
+                                            ForkJoinPool pool) {
+        final int n = G.vertexSize();
+        final double[] result = new double[n];
+        final AtomicInteger next = new AtomicInteger();
+        Parallel.forRange(pool, workers(n, pool), 1, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int t = lo; t < hi; t += 1) {
+                        int s = next.getAndIncrement();
+                        if (s >= n) {
+                            continue;
+                        }
+                        Distances search = new Distances(G);
+                        for (; s < n; s = next.getAndIncrement()) {
+                            search.run(s);
+                            result[s] = harmonic ? search.harmonicSum()
+                                : search.closeness();
+                        }
+                    }
+                }
+            });
+        return result;
+    }
+
+    /** Returns the number of workers among which to divide N sources on
+     *  POOL: one per thread, so that there is one workspace and one
+     *  accumulator per thread. */
+    private static int workers(int n, ForkJoinPool pool) {
+        return Math.max(1, Math.min(n, pool.getParallelism()));
+    }
+
+    /** Returns the sum of the arrays of length N in PARTIAL, ignoring
+     *  null entries, multiplied by SCALE, computed on POOL. */
+    private static double[] sum(final double[][] partial, int n,
+                                final double scale, ForkJoinPool pool) {
+        final double[] result = new double[n];
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (double[] acc : partial) {
+                        if (acc == null) {
+                            continue;
+                        }
+                        for (int v = lo; v < hi; v += 1) {
+                            result[v] += acc[v];
+                        }
+                    }
+                    for (int v = lo; v < hi; v += 1) {
+                        result[v] *= scale;
+                    }
+                }
+            });
+        return result;
+    }
+
+    /** A breadth-first search from one source at a time, finding
+     *  distances only.  Its arrays are reset only where the last search
+     *  touched them, so a search costs time proportional to the part of
+     *  the graph it reaches. */
+    private static class Distances {
+
+        /** A search over G. */
+        Distances(CsrGraph<?, ?> G) {
+            _graph = G;
+            int n = G.vertexSize();
+            _dist = new int[n];
+            Arrays.fill(_dist, -1);
+            _order = new int[n];
+        }
+
+        /** Finds the distances from SOURCE. */
+        void run(int source) {
+            clear();
+            CsrGraph<?, ?> G = _graph;
+            _dist[source] = 0;
+            _order[0] = source;
+            _reached = 1;
+            for (int head = 0; head < _reached; head += 1) {
+                int v = _order[head];
+                int d = _dist[v] + 1;
+                for (int k = G.outStart(v); k < G.outStart(v + 1); k += 1) {
+                    int w = G.outTarget(k);
+                    if (_dist[w] < 0) {
+                        _dist[w] = d;
+                        _order[_reached] = w;
+                        _reached += 1;
+                    }
+                }
+            }
+        }
+
+        /** Resets the entries the last search set. */
+        void clear() {
+            for (int k = 0; k < _reached; k += 1) {
+                _dist[_order[k]] = -1;
+            }
+            _reached = 0;
+        }
+
+        /** Returns the closeness of the source of the last search. */
+        double closeness() {
+            long total = 0;
+            for (int k = 1; k < _reached; k += 1) {
+                total += _dist[_order[k]];
+            }
+            return total == 0 ? 0.0 : (_reached - 1) / (double) total;
+        }
+
+        /** Returns the harmonic centrality of the source of the last
+         *  search. */
+        double harmonicSum() {
+            double total = 0.0;
+            for (int k = 1; k < _reached; k += 1) {
+                total += 1.0 / _dist[_order[k]];
+            }
+            return total;
+        }
+
+        /** The graph searched. */
+        final CsrGraph<?, ?> _graph;
+        /** Distance of each vertex from the source, or -1 if not
+         *  reached. */
+        final int[] _dist;
+        /** The vertices reached, in order of distance. */
+        final int[] _order;
+        /** Number of vertices reached by the last search. */
+        int _reached;
+    }
+
+    /** A breadth-first search that also counts shortest paths and
+     *  accumulates dependencies, as in Brandes' algorithm. */
+    private static class Brandes extends Distances {
+
+        /** A search over G. */
+        Brandes(CsrGraph<?, ?> G) {
+            super(G);
+            int n = G.vertexSize();
+            _sigma = new double[n];
+            _delta = new double[n];
+        }
+
+        /** Finds the distances from SOURCE, and the number of shortest
+         *  paths to each vertex reached. */
+        @Override
+        void run(int source) {
+            clear();
+            CsrGraph<?, ?> G = _graph;
+            _dist[source] = 0;
+            _sigma[source] = 1.0;
+            _order[0] = source;
+            _reached = 1;
+            for (int head = 0; head < _reached; head += 1) {
+                int v = _order[head];
+                int d = _dist[v] + 1;
+                for (int k = G.outStart(v); k < G.outStart(v + 1); k += 1) {
+                    int w = G.outTarget(k);
+                    if (_dist[w] < 0) {
+                        _dist[w] = d;
+                        _order[_reached] = w;
+                        _reached += 1;
+                    }
+                    if (_dist[w] == d) {
+                        _sigma[w] += _sigma[v];
+                    }
+                }
+            }
+        }
+
+        @Override
+        void clear() {
+            for (int k = 0; k < _reached; k += 1) {
+                int v = _order[k];
+                _sigma[v] = _delta[v] = 0.0;
+            }
+            super.clear();
+        }
+
+        /** Adds the dependency of each vertex on the source of the last
+         *  search (the sum over targets t of the fraction of shortest
+         *  paths to t through it) to ACC.  Works back from the farthest
+         *  vertices, passing each one's share to its predecessors on
+         *  shortest paths. */
+        void accumulate(double[] acc) {
+            CsrGraph<?, ?> G = _graph;
+            for (int i = _reached - 1; i > 0; i -= 1) {
+                int w = _order[i];
+                double share = (1.0 + _delta[w]) / _sigma[w];
+                int d = _dist[w] - 1;
+                for (int k = G.inStart(w); k < G.inStart(w + 1); k += 1) {
+                    int u = G.inSource(k);
+                    if (_dist[u] == d) {
+                        _delta[u] += _sigma[u] * share;
+                    }
+                }
+                acc[w] += _delta[w];
+            }
+        }
+
+        /** Number of shortest paths from the source to each vertex. */
+        private final double[] _sigma;
+        /** Dependency of the source on each vertex. */
+        private final double[] _delta;
+    }
+
+    /** Number of vertices each parallel task handles when summing. */
+    private static final int GRAIN = 1 << 14;
+
+    /** Not instantiable. */
+    private Centrality() {
+    }
+}
@@ -0,0 +1,506 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Connected and strongly connected components.  Each method returns
+ *  an array C indexed by G.index(v) in which C[v] is the number of the
+ *  component containing v.  Components are numbered 0, 1, ... in order
+ *  of their lowest-indexed vertices, so the answer does not depend on
+ *  the method used to find it, and count(C) is the number of
+ *  components.  All run over a CsrGraph snapshot of the graph
+ *  (G.freeze()), and none recurses, so arbitrarily deep graphs are
+ *  safe.  The graph must not change while they run.
+ *  @author Ron Desmond
+ */
+public final class Components {
+
+    /** Returns the connected components of G, found with a union-find
+     *  structure. */
+    public static <VLabel, ELabel> int[]
+    connected(UndirectedGraph<VLabel, ELabel> G) {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int n = csr.vertexSize();
+        UnionFind sets = new UnionFind(n);
+        for (int v = 0; v < n; v += 1) {
+            for (int k = csr.outStart(v); k < csr.outStart(v + 1); k += 1) {
+                sets.union(v, csr.outTarget(k));
+            }
+        }
+        int[] roots = new int[n];
+        for (int v = 0; v < n; v += 1) {
+            roots[v] = sets.find(v);
+        }
+        return renumber(roots, n);
+    }
+
+    /** Returns the connected components of G, found on POOL by a
+     *  concurrent union-find structure.  Each edge is scanned once, in
+     *  parallel; union links the higher-numbered of two roots beneath the
+     *  lower with a compare-and-set, retrying if another thread has
+     *  linked either meanwhile, and find halves paths with compare-and-set
+     *  as well.  Since links always point to lower numbers, the
+     *  concurrent unions can never form a cycle. */
+    public static <VLabel, ELabel> int[]
+    connected(UndirectedGraph<VLabel, ELabel> G, ForkJoinPool pool) {
+        final CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int n = csr.vertexSize();
+        final AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        parent.set(v, v);
+                    }
+                }
+            });
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        int end = csr.outStart(v + 1);
+                        for (int k = csr.outStart(v); k < end; k += 1) {
+                            int w = csr.outTarget(k);
+                            if (w < v) {
+                                union(parent, v, w);
+                            }
+                        }
+                    }
+                }
+            });
+        int[] roots = new int[n];
+        for (int v = 0; v < n; v += 1) {
+            roots[v] = find(parent, v);
+        }
+        return renumber(roots, n);
+    }
+
+    /** Returns the strongly connected components of G, found by an
+     *  iterative version of Tarjan's algorithm, which keeps its own
+     *  stack of vertices being explored in place of recursion. */
+    public static <VLabel, ELabel> int[]
+    strong(DirectedGraph<VLabel, ELabel> G) {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int n = csr.vertexSize();
+        int[] all = new int[n];
+        for (int v = 0; v < n; v += 1) {
+            all[v] = v;
+        }
+        AtomicIntegerArray color = new AtomicIntegerArray(n);
+        AtomicInteger nextColor = new AtomicInteger(1);
+        tarjan(csr, all, 0, color, nextColor, new int[n]);
+        return renumber(color, nextColor.get());
+    }
+
+    /** Returns the strongly connected components of G, found on POOL by
+     *  the forward-backward method.  First, vertices with no incoming or
+     *  no outgoing edges are repeatedly trimmed off as components of
+     *  their own.  Then, from a pivot vertex, parallel breadth-first
+     *  searches find the vertices it reaches (F) and those reaching it
+     *  (B).  F and B intersect in the pivot's component, and every other
+     *  component lies wholly within F - B, B - F, or the rest, so those
+     *  three sets are handled the same way as independent parallel tasks.
+     *  Sets too small to be worth splitting go to Tarjan's algorithm.
+     *  Vertices are assigned to sets by coloring them, and the searches
+     *  claim vertices by compare-and-set on their colors. */
+    public static <VLabel, ELabel> int[]
+    strong(DirectedGraph<VLabel, ELabel> G, ForkJoinPool pool) {
+        return new ForwardBackward<VLabel, ELabel>(G.freeze(), pool).run();
+    }
+
+    /** Returns the number of components in COMPONENTS, as returned by one
+     *  of the other methods. */
+    public static int count(int[] components) {
+        int result = 0;
+        for (int c : components) {
+            result = Math.max(result, c + 1);
+        }
+        return result;
+    }
+
+    /** Returns the root of the tree containing X in the concurrent
+     *  union-find forest PARENT, halving the path to it. */
+    private static int find(AtomicIntegerArray parent, int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                return x;
+            }
+            int gp = parent.get(p);
+            if (p != gp) {
+                parent.compareAndSet(x, p, gp);
+            }
+            x = gp;
+        }
+    }
+
+    /** Merges the trees containing X and Y in PARENT. */
+    private static void union(AtomicIntegerArray parent, int x, int y) {
+        while (true) {
+            x = find(parent, x);
+            y = find(parent, y);
+            if (x == y) {
+                return;
+            }
+            if (x < y) {
+                int tmp = x;
+                x = y;
+                y = tmp;
+            }
+            if (parent.compareAndSet(x, x, y)) {
+                return;
+            }
+        }
+    }
+
+    /** Returns LABELS, whose values are in 0 .. RANGE-1, with the distinct
+     *  values replaced by 0, 1, ... in order of first appearance. */
+    private static int[] renumber(int[] labels, int range) {
+        int[] first = new int[range];
+        Arrays.fill(first, -1);
+        int count = 0;
+        int[] result = new int[labels.length];
+        for (int v = 0; v < labels.length; v += 1) {
+            if (first[labels[v]] < 0) {
+                first[labels[v]] = count;
+                count += 1;
+            }
+            result[v] = first[labels[v]];
+        }
+        return result;
+    }
+
+    /** Returns the vertex colors in COLOR, which are in 0 .. RANGE-1,
+     *  renumbered as for renumber(int[], int). */
+    private static int[] renumber(AtomicIntegerArray color, int range) {
+        int[] labels = new int[color.length()];
+        for (int v = 0; v < labels.length; v += 1) {
+            labels[v] = color.get(v);
+        }
+        return renumber(labels, range);
+    }
+
+    /** Runs Tarjan's algorithm on the subgraph of G induced by VERTS, all
+     *  of whose colors in COLOR are C, giving the vertices of each strong
+     *  component found a new color from NEXTCOLOR.  LOCAL is scratch
+     *  space indexed by vertex, of which only the entries for VERTS are
+     *  touched. */
+    private static void tarjan(CsrGraph<?, ?> G, int[] verts, int c,
+                               AtomicIntegerArray color,
+                               AtomicInteger nextColor, int[] local) {
+        int size = verts.length;
+        for (int i = 0; i < size; i += 1) {
+            local[verts[i]] = i;
+        }
+        int[] order = new int[size];
+        Arrays.fill(order, -1);
+        int[] low = new int[size];
+        int[] stack = new int[size];
+        int[] callVertex = new int[size];
+        int[] callSlot = new int[size];
+        int sp, depth, counter;
+        sp = counter = 0;
+        for (int r = 0; r < size; r += 1) {
+            if (order[r] >= 0 || color.get(verts[r]) != c) {
+                continue;
+            }
+            order[r] = low[r] = counter;
+            counter += 1;
+            stack[sp] = r;
+            sp += 1;
+            callVertex[0] = r;
+            callSlot[0] = G.outStart(verts[r]);
+            depth = 1;
+            while (depth > 0) {
+                int i = callVertex[depth - 1];
+                int slot = callSlot[depth - 1];
+                if (slot < G.outStart(verts[i] + 1)) {
+                    callSlot[depth - 1] = slot + 1;
+                    int w = G.outTarget(slot);
+                    if (color.get(w) != c) {
+                        continue;
+                    }
+                    int j = local[w];
+                    if (order[j] < 0) {
+                        order[j] = low[j] = counter;
+                        counter += 1;
+                        stack[sp] = j;
+                        sp += 1;
+                        callVertex[depth] = j;
+                        callSlot[depth] = G.outStart(w);
+                        depth += 1;
+                    } else {
+                        low[i] = Math.min(low[i], order[j]);
+                    }
+                } else {
+                    depth -= 1;
+                    if (low[i] == order[i]) {
+                        int fresh = nextColor.getAndIncrement();
+                        int j;
+                        do {
+                            sp -= 1;
+                            j = stack[sp];
+                            color.set(verts[j], fresh);
+                        } while (j != i);
+                    }
+                    if (depth > 0) {
+                        int p = callVertex[depth - 1];
+                        low[p] = Math.min(low[p], low[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /** The state of one forward-backward computation of strong
+     *  components. */
+    private static class ForwardBackward<VLabel, ELabel> {
+
+        /** A computation of the strong components of G on POOL. */
+        ForwardBackward(CsrGraph<VLabel, ELabel> G, ForkJoinPool pool) {
+            _graph = G;
+            _pool = pool;
+            int n = G.vertexSize();
+            _color = new AtomicIntegerArray(n);
+            _local = new int[n];
+            _nextColor = new AtomicInteger(n + 1);
+        }
+
+        /** Returns the strong components of my graph. */
+        int[] run() {
+            int n = _graph.vertexSize();
+            trim();
+            IntList rest = new IntList();
+            for (int v = 0; v < n; v += 1) {
+                if (_color.get(v) == 0) {
+                    rest.add(v);
+                }
+            }
+            if (!rest.isEmpty()) {
+                _pool.invoke(new Task(null, 0, rest.toArray()));
+            }
+            return renumber(_color, _nextColor.get());
+        }
+
+        /** Gives each vertex that has no incoming or no outgoing edges
+         *  from other vertices of color 0, repeatedly, a color of its
+         *  own.  Vertex v gets color v + 1, which no other set uses. */
+        private void trim() {
+            final CsrGraph<VLabel, ELabel> G = _graph;
+            int n = G.vertexSize();
+            final AtomicIntegerArray in = new AtomicIntegerArray(n),
+                out = new AtomicIntegerArray(n);
+            int[] all = new int[n];
+            for (int v = 0; v < n; v += 1) {
+                all[v] = v;
+            }
+            int[] frontier = expand(all, new Step() {
+                    public void visit(int v, IntList next) {
+                        int ins, outs;
+                        ins = outs = 0;
+                        for (int k = G.inStart(v); k < G.inStart(v + 1);
+                             k += 1) {
+                            if (G.inSource(k) != v) {
+                                ins += 1;
+                            }
+                        }
+                        for (int k = G.outStart(v); k < G.outStart(v + 1);
+                             k += 1) {
+                            if (G.outTarget(k) != v) {
+                                outs += 1;
+                            }
+                        }
+                        in.set(v, ins);
+                        out.set(v, outs);
+                        if (ins == 0 || outs == 0) {
+                            _color.set(v, v + 1);
+                            next.add(v);
+                        }
+                    }
+                });
+            while (frontier.length > 0) {
+                frontier = expand(frontier, new Step() {
+                        public void visit(int v, IntList next) {
+                            for (int k = G.outStart(v);
+                                 k < G.outStart(v + 1); k += 1) {
+                                int w = G.outTarget(k);
+                                if (w != v && in.decrementAndGet(w) == 0
+                                    && _color.compareAndSet(w, 0, w + 1)) {
+                                    next.add(w);
+                                }
+                            }
+                            for (int k = G.inStart(v);
+                                 k < G.inStart(v + 1); k += 1) {
+                                int u = G.inSource(k);
+                                if (u != v && out.decrementAndGet(u) == 0
+                                    && _color.compareAndSet(u, 0, u + 1)) {
+                                    next.add(u);
+                                }
+                            }
+                        }
+                    });
+            }
+        }
+
+        /** Colors the vertices of color C reachable from PIVOT (F) with
+         *  FC and those reaching it (B) with BC, except that those in both
+         *  get SC. */
+        private void split(int pivot, final int c, final int fc,
+                           final int bc, final int sc) {
+            final CsrGraph<VLabel, ELabel> G = _graph;
+            _color.set(pivot, fc);
+            int[] frontier = { pivot };
+            while (frontier.length > 0) {
+                frontier = expand(frontier, new Step() {
+                        public void visit(int v, IntList next) {
+                            for (int k = G.outStart(v);
+                                 k < G.outStart(v + 1); k += 1) {
+                                int w = G.outTarget(k);
+                                if (_color.compareAndSet(w, c, fc)) {
+                                    next.add(w);
+                                }
+                            }
+                        }
+                    });
+            }
+            _color.set(pivot, sc);
+            frontier = new int[] { pivot };
+            while (frontier.length > 0) {
+                frontier = expand(frontier, new Step() {
+                        public void visit(int v, IntList next) {
+                            for (int k = G.inStart(v);
+                                 k < G.inStart(v + 1); k += 1) {
+                                int u = G.inSource(k);
+                                if (_color.compareAndSet(u, fc, sc)
+                                    || _color.compareAndSet(u, c, bc)) {
+                                    next.add(u);
+                                }
+                            }
+                        }
+                    });
+            }
+        }
+
+        /** An action on one vertex of a frontier. */
+        private interface Step {
+            /** Performs my action on V, adding any vertices that belong
+             *  to the next frontier to NEXT. */
+            void visit(int v, IntList next);
+        }
+
+        /** Performs STEP on each vertex of FRONTIER in parallel, and
+         *  returns the concatenation of the vertices they add. */
+        private int[] expand(final int[] frontier, final Step step) {
+            int nchunks = Parallel.chunks(frontier.length, GRAIN);
+            final IntList[] found = new IntList[nchunks];
+            Parallel.forRange(_pool, nchunks, 1, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int c = lo; c < hi; c += 1) {
+                            IntList next = new IntList();
+                            int end =
+                                Math.min(frontier.length, (c + 1) * GRAIN);
+                            for (int k = c * GRAIN; k < end; k += 1) {
+                                step.visit(frontier[k], next);
+                            }
+                            found[c] = next;
+                        }
+                    }
+                });
+            int size = 0;
+            for (IntList next : found) {
+                size += next.size();
+            }
+            int[] result = new int[size];
+            int k = 0;
+            for (IntList next : found) {
+                next.copyInto(result, k);
+                k += next.size();
+            }
+            return result;
+        }
+
+        /** Finds the strong components among the vertices of one
+         *  color. */
+        private class Task extends CountedCompleter<Void> {
+
+            /** A task, a subtask of PARENT (null for none), that finds the
+             *  components among VERTS, which are all the vertices of
+             *  color C. */
+            Task(CountedCompleter<?> parent, int c, int[] verts) {
+                super(parent);
+                _c = c;
+                _verts = verts;
+            }
+
+            @Override
+            public void compute() {
+                if (_verts.length <= SEQUENTIAL_SIZE) {
+                    tarjan(_graph, _verts, _c, _color, _nextColor, _local);
+                } else {
+                    int fc = _nextColor.getAndIncrement(),
+                        bc = _nextColor.getAndIncrement(),
+                        sc = _nextColor.getAndIncrement();
+                    split(_verts[0], _c, fc, bc, sc);
+                    IntList forward = new IntList(), backward = new IntList(),
+                        rest = new IntList();
+                    for (int v : _verts) {
+                        int color = _color.get(v);
+                        if (color == fc) {
+                            forward.add(v);
+                        } else if (color == bc) {
+                            backward.add(v);
+                        } else if (color == _c) {
+                            rest.add(v);
+                        }
+                    }
+                    spawn(fc, forward);
+                    spawn(bc, backward);
+                    spawn(_c, rest);
+                }
+                tryComplete();
+            }
+
+            /** Starts a subtask on VERTS, all of color C, if there are
+             *  any. */
+            private void spawn(int c, IntList verts) {
+                if (!verts.isEmpty()) {
+                    addToPendingCount(1);
+                    new Task(this, c, verts.toArray()).fork();
+                }
+            }
+
+            /** The color of my vertices. */
+            private final int _c;
+            /** My vertices. */
+            private final int[] _verts;
+
+            /** Serialization version (CountedCompleter is
+             *  Serializable). */
+            private static final long serialVersionUID = 1L;
+        }
+
+        /** The graph whose components I find. */
+        private final CsrGraph<VLabel, ELabel> _graph;
+        /** The pool I run on. */
+        private final ForkJoinPool _pool;
+        /** The set each vertex is in.  At the end, vertices have the same
+         *  color iff they are in the same component. */
+        private final AtomicIntegerArray _color;
+        /** The next unused color. */
+        private final AtomicInteger _nextColor;
+        /** Scratch space for tarjan.  Tasks work on disjoint sets of
+         *  vertices, so they can share it. */
+        private final int[] _local;
+    }
+
+    /** Number of vertices or edges each parallel task handles. */
+    private static final int GRAIN = 1 << 12;
+    /** Sets of vertices no larger than this are left to Tarjan's
+     *  algorithm. */
+    private static final int SEQUENTIAL_SIZE = 1 << 12;
+
+    /** Not instantiable. */
+    private Components() {
+    }
+}
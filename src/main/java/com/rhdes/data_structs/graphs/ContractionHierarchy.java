@@ -0,0 +1,562 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/** A contraction hierarchy: an index over a fixed, weighted graph that
+ *  answers shortest-path queries orders of magnitude faster than
+ *  Graphs.shortestPath on large, sparse graphs such as road networks.
+ *
+ *  Preprocessing contracts the vertices one at a time, least important
+ *  first.  Contracting v removes it from the graph that remains, adding
+ *  a shortcut arc (u, w), with the weight of the path u, v, w, for each
+ *  pair of remaining neighbors whose shortest path ran through v (that
+ *  is, for which a bounded witness search finds no other path as
+ *  short).  A vertex's rank is the order in which it was contracted.
+ *  Every shortest path then has a counterpart in the original edges
+ *  plus shortcuts that first climbs to higher and higher ranks and then
+ *  descends, so a query runs a Dijkstra search upward from the source
+ *  and another upward (over reversed arcs) from the target, each of
+ *  which settles only a small part of the graph.  Shortcuts remember
+ *  the two arcs they replace, and the paths returned are unpacked to
+ *  edges of the original graph.
+ *
+ *  The hierarchy describes the graph and edge weights, which must be
+ *  non-negative, as they were when it was built.  Queries may run
+ *  concurrently; each thread keeps its own search state.
+ *  @author Ron Desmond
+ */
+public class ContractionHierarchy<VLabel, ELabel> {
+
+    /** Returns a contraction hierarchy for G whose edge weights are given
+     *  by EWEIGHTER. */
+    public static <VLabel, ELabel> ContractionHierarchy<VLabel, ELabel>
+    of(Graph<VLabel, ELabel> G, Weighting<? super ELabel> eweighter) {
+        return new ContractionHierarchy<VLabel, ELabel>(G, eweighter);
+    }
+
+    /** Returns a contraction hierarchy for G weighted by the weights of
+     *  its edge labels. */
+    public static <VLabel, ELabel extends Weighted>
+    ContractionHierarchy<VLabel, ELabel> of(Graph<VLabel, ELabel> G) {
+        return of(G, Graphs.LABEL_WEIGHTS);
+    }
+
+    /** Builds the hierarchy for G, weighted by EWEIGHTER. */
+    private ContractionHierarchy(Graph<VLabel, ELabel> G,
+                                 Weighting<? super ELabel> eweighter) {
+        long start = System.nanoTime();
+        _graph = G.freeze();
+        int n = _graph.vertexSize();
+        _out = new IntList[n];
+        _in = new IntList[n];
+        for (int v = 0; v < n; v += 1) {
+            _out[v] = new IntList();
+            _in[v] = new IntList();
+        }
+        double[] weights = _graph.outWeights(eweighter);
+        for (int v = 0; v < n; v += 1) {
+            for (int s = _graph.outStart(v); s < _graph.outStart(v + 1);
+                 s += 1) {
+                int w = _graph.outTarget(s);
+                if (w != v) {
+                    addArc(v, w, weights[s], _graph.outEdge(s), -1, -1);
+                }
+            }
+        }
+        _originalArcs = _arcs;
+        contractAll();
+        buildUpwardGraphs();
+        _out = _in = null;
+        _witnessDist = null;
+        _witnessStamps = null;
+        _witnessHeap = null;
+        _preprocessingNanos = System.nanoTime() - start;
+    }
+
+    /** Returns a path of minimum weight from V0 to V1, as a list of edges
+     *  of the original graph, or null if V1 is unreachable from V0. */
+    public List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1) {
+        Search search = _searches.get();
+        search.run(index(V0), index(V1));
+        if (search._meet < 0) {
+            return null;
+        }
+        IntList arcs = new IntList();
+        for (int v = search._meet; search._parents[0][v] >= 0; ) {
+            arcs.add(search._parents[0][v]);
+            v = _tail[search._parents[0][v]];
+        }
+        for (int i = 0, j = arcs.size() - 1; i < j; i += 1, j -= 1) {
+            int tmp = arcs.get(i);
+            arcs.set(i, arcs.get(j));
+            arcs.set(j, tmp);
+        }
+        for (int v = search._meet; search._parents[1][v] >= 0; ) {
+            arcs.add(search._parents[1][v]);
+            v = _head[search._parents[1][v]];
+        }
+        LinkedList<Graph<VLabel, ELabel>.Edge> result =
+            new LinkedList<Graph<VLabel, ELabel>.Edge>();
+        IntList pending = new IntList();
+        for (int k = 0; k < arcs.size(); k += 1) {
+            pending.add(arcs.get(k));
+            while (!pending.isEmpty()) {
+                int a = pending.pop();
+                if (_first[a] < 0) {
+                    result.add(edge(a));
+                } else {
+                    pending.add(_second[a]);
+                    pending.add(_first[a]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Returns the weight of a shortest path from V0 to V1, or
+     *  Double.POSITIVE_INFINITY if V1 is unreachable from V0. */
+    public double distance(Graph<VLabel, ELabel>.Vertex V0,
+                           Graph<VLabel, ELabel>.Vertex V1) {
+        Search search = _searches.get();
+        search.run(index(V0), index(V1));
+        return search._best;
+    }
+
+    /** Returns the number of shortcut arcs added by preprocessing. */
+    public int shortcutCount() {
+        return _arcs - _originalArcs;
+    }
+
+    /** Returns the time preprocessing took, in nanoseconds. */
+    public long preprocessingNanos() {
+        return _preprocessingNanos;
+    }
+
+    /** Returns an estimate of the memory, in bytes, taken by my arrays
+     *  (not counting the snapshot of the graph they index or per-thread
+     *  search state). */
+    public long memoryBytes() {
+        long arcs = _tail.length;
+        return arcs * (4 + 4 + 8 + 4 + 4 + REFERENCE_BYTES)
+            + 4L * (_upArcs.length + _downArcs.length)
+            + 4L * (_upOffsets.length + _downOffsets.length + _rank.length);
+    }
+
+    /** Returns the index of V, which must be one of my vertices. */
+    private int index(Graph<VLabel, ELabel>.Vertex V) {
+        int i = _graph.index(V);
+        if (i < 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        return i;
+    }
+
+    /** Returns the original edge that arc A stands for.  Assumes A is not
+     *  a shortcut. */
+    @SuppressWarnings("unchecked")
+    private Graph<VLabel, ELabel>.Edge edge(int a) {
+        return (Graph<VLabel, ELabel>.Edge) _edges[a];
+    }
+
+    /*=====  Preprocessing =====*/
+
+    /** Adds an arc from TAIL to HEAD with weight WEIGHT to the remaining
+     *  graph, returning its number.  The arc stands for EDGE, or, if
+     *  FIRST is not -1, is the shortcut for arcs FIRST and SECOND. */
+    private int addArc(int tail, int head, double weight, Object edge,
+                       int first, int second) {
+        if (_arcs == _tail.length) {
+            int cap = 2 * _arcs + 16;
+            _tail = Arrays.copyOf(_tail, cap);
+            _head = Arrays.copyOf(_head, cap);
+            _weight = Arrays.copyOf(_weight, cap);
+            _first = Arrays.copyOf(_first, cap);
+            _second = Arrays.copyOf(_second, cap);
+            _edges = Arrays.copyOf(_edges, cap);
+        }
+        int a = _arcs;
+        _arcs += 1;
+        _tail[a] = tail;
+        _head[a] = head;
+        _weight[a] = weight;
+        _edges[a] = edge;
+        _first[a] = first;
+        _second[a] = second;
+        _out[tail].add(a);
+        _in[head].add(a);
+        return a;
+    }
+
+    /** Contracts every vertex, in order of increasing priority, setting
+     *  _rank.  Contracting a vertex updates the priorities of its
+     *  remaining neighbors.  Other priorities are updated lazily: a
+     *  vertex whose recomputed priority is no longer the smallest goes
+     *  back into the queue. */
+    private void contractAll() {
+        int n = _out.length;
+        _rank = new int[n];
+        Arrays.fill(_rank, -1);
+        _witnessDist = new double[n];
+        _witnessStamps = new int[n];
+        _witnessHeap = new IntHeap();
+        _contractedNeighbors = new int[n];
+        _depth = new int[n];
+        IntHeap queue = new IntHeap();
+        queue.clear(n);
+        for (int v = 0; v < n; v += 1) {
+            queue.add(v, priority(v));
+        }
+        VertexMarks marks = new VertexMarks();
+        IntList neighbors = new IntList();
+        int next = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            double p = priority(v);
+            if (!queue.isEmpty() && p > queue.minPriority()) {
+                queue.add(v, p);
+                continue;
+            }
+            shortcuts(v, true);
+            _rank[v] = next;
+            next += 1;
+            marks.clear(n);
+            neighbors.clear();
+            for (int k = 0; k < _out[v].size() + _in[v].size(); k += 1) {
+                int w = k < _out[v].size() ? _head[_out[v].get(k)]
+                    : _tail[_in[v].get(k - _out[v].size())];
+                if (!marks.isMarked(w)) {
+                    marks.mark(w);
+                    neighbors.add(w);
+                }
+            }
+            for (int k = 0; k < neighbors.size(); k += 1) {
+                int w = neighbors.get(k);
+                _contractedNeighbors[w] += 1;
+                _depth[w] = Math.max(_depth[w], _depth[v] + 1);
+                queue.update(w, priority(w));
+            }
+        }
+        _contractedNeighbors = _depth = null;
+    }
+
+    /** Returns the priority of uncontracted vertex V: the number of
+     *  shortcuts contracting it would add less the number of arcs it
+     *  would remove (its edge difference), plus the number of its
+     *  neighbors already contracted and its depth in the hierarchy so
+     *  far, which spread contraction evenly over the graph and keep the
+     *  hierarchy shallow. */
+    private double priority(int v) {
+        prune(_out[v], _head);
+        prune(_in[v], _tail);
+        return shortcuts(v, false) - _out[v].size() - _in[v].size()
+            + _contractedNeighbors[v] + _depth[v];
+    }
+
+    /** Removes from ARCS the arcs whose far end, according to ENDS, has
+     *  been contracted. */
+    private void prune(IntList arcs, int[] ends) {
+        int k = 0;
+        for (int i = 0; i < arcs.size(); i += 1) {
+            int a = arcs.get(i);
+            if (_rank[ends[a]] < 0) {
+                arcs.set(k, a);
+                k += 1;
+            }
+        }
+        while (arcs.size() > k) {
+            arcs.pop();
+        }
+    }
+
+    /** Returns the number of shortcuts needed to contract uncontracted
+     *  vertex V, adding them to the remaining graph iff ADD. */
+    private int shortcuts(int v, boolean add) {
+        int count = 0;
+        IntList in = _in[v], out = _out[v];
+        for (int i = 0; i < in.size(); i += 1) {
+            int a = in.get(i);
+            int u = _tail[a];
+            if (_rank[u] >= 0) {
+                continue;
+            }
+            double limit = 0.0;
+            for (int j = 0; j < out.size(); j += 1) {
+                int b = out.get(j);
+                if (_rank[_head[b]] < 0 && _head[b] != u) {
+                    limit = Math.max(limit, _weight[a] + _weight[b]);
+                }
+            }
+            witnessSearch(u, v, limit,
+                          add ? WITNESS_SETTLED : SIMULATED_SETTLED);
+            for (int j = 0; j < out.size(); j += 1) {
+                int b = out.get(j);
+                int w = _head[b];
+                double d = _weight[a] + _weight[b];
+                if (_rank[w] >= 0 || w == u || witnessDist(w) <= d) {
+                    continue;
+                }
+                count += 1;
+                _witnessDist[w] = d;
+                _witnessStamps[w] = _witnessRound;
+                if (add) {
+                    addArc(u, w, d, null, a, b);
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Labels vertices with the lengths of short paths from SOURCE that
+     *  avoid vertex AVOID and contracted vertices, stopping once the
+     *  paths left exceed LIMIT or MAXSETTLED vertices have been settled.
+     *  The labels are upper bounds on the true distances. */
+    private void witnessSearch(int source, int avoid, double limit,
+                               int maxSettled) {
+        _witnessRound += 1;
+        if (_witnessRound == 0) {
+            Arrays.fill(_witnessStamps, 0);
+            _witnessRound = 1;
+        }
+        IntHeap heap = _witnessHeap;
+        heap.clear(_witnessDist.length);
+        _witnessDist[source] = 0.0;
+        _witnessStamps[source] = _witnessRound;
+        heap.add(source, 0.0);
+        for (int settled = 0; !heap.isEmpty() && settled < maxSettled;
+             settled += 1) {
+            if (heap.minPriority() > limit) {
+                break;
+            }
+            int x = heap.poll();
+            double d = _witnessDist[x];
+            IntList arcs = _out[x];
+            for (int k = 0; k < arcs.size(); k += 1) {
+                int a = arcs.get(k);
+                int y = _head[a];
+                if (y == avoid || _rank[y] >= 0
+                    || d + _weight[a] >= witnessDist(y)) {
+                    continue;
+                }
+                _witnessDist[y] = d + _weight[a];
+                _witnessStamps[y] = _witnessRound;
+                heap.addOrDecrease(y, _witnessDist[y]);
+            }
+        }
+    }
+
+    /** Returns the label the last witness search gave to X, or infinity
+     *  if it gave none. */
+    private double witnessDist(int x) {
+        if (_witnessStamps[x] != _witnessRound) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return _witnessDist[x];
+    }
+
+    /** Sorts every arc into the upward graph searched from sources (arcs
+     *  that rise in rank, by tail) or the one searched from targets (arcs
+     *  that fall in rank, by head), and trims the arc arrays. */
+    private void buildUpwardGraphs() {
+        int n = _rank.length;
+        _tail = Arrays.copyOf(_tail, _arcs);
+        _head = Arrays.copyOf(_head, _arcs);
+        _weight = Arrays.copyOf(_weight, _arcs);
+        _first = Arrays.copyOf(_first, _arcs);
+        _second = Arrays.copyOf(_second, _arcs);
+        _edges = Arrays.copyOf(_edges, _arcs);
+        _upOffsets = new int[n + 1];
+        _downOffsets = new int[n + 1];
+        for (int a = 0; a < _arcs; a += 1) {
+            if (_rank[_tail[a]] < _rank[_head[a]]) {
+                _upOffsets[_tail[a] + 1] += 1;
+            } else {
+                _downOffsets[_head[a] + 1] += 1;
+            }
+        }
+        for (int v = 0; v < n; v += 1) {
+            _upOffsets[v + 1] += _upOffsets[v];
+            _downOffsets[v + 1] += _downOffsets[v];
+        }
+        _upArcs = new int[_upOffsets[n]];
+        _downArcs = new int[_downOffsets[n]];
+        int[] upNext = Arrays.copyOf(_upOffsets, n);
+        int[] downNext = Arrays.copyOf(_downOffsets, n);
+        for (int a = 0; a < _arcs; a += 1) {
+            if (_rank[_tail[a]] < _rank[_head[a]]) {
+                _upArcs[upNext[_tail[a]]] = a;
+                upNext[_tail[a]] += 1;
+            } else {
+                _downArcs[downNext[_head[a]]] = a;
+                downNext[_head[a]] += 1;
+            }
+        }
+    }
+
+    /*=====  Queries =====*/
+
+    /** The state of one thread's queries.  Side 0 searches upward from
+     *  the source over _upArcs; side 1 searches upward from the target
+     *  over _downArcs, backward. */
+    private class Search {
+
+        /** Search state for a hierarchy with N vertices. */
+        Search(int n) {
+            for (int side = 0; side < 2; side += 1) {
+                _dist[side] = new double[n];
+                _parents[side] = new int[n];
+                _stamps[side] = new int[n];
+                _heaps[side] = new IntHeap();
+            }
+        }
+
+        /** Finds the length of a shortest path from S to T, setting _best
+         *  to it and _meet to its highest vertex (or to -1 if there is no
+         *  path). */
+        void run(int s, int t) {
+            _round += 1;
+            if (_round == 0) {
+                Arrays.fill(_stamps[0], 0);
+                Arrays.fill(_stamps[1], 0);
+                _round = 1;
+            }
+            _best = Double.POSITIVE_INFINITY;
+            _meet = -1;
+            int n = _rank.length;
+            _heaps[0].clear(n);
+            _heaps[1].clear(n);
+            label(0, s, 0.0, -1);
+            label(1, t, 0.0, -1);
+            while (!_heaps[0].isEmpty() || !_heaps[1].isEmpty()) {
+                int side;
+                if (_heaps[1].isEmpty()) {
+                    side = 0;
+                } else if (_heaps[0].isEmpty()) {
+                    side = 1;
+                } else {
+                    side = _heaps[0].minPriority() <= _heaps[1].minPriority()
+                        ? 0 : 1;
+                }
+                IntHeap heap = _heaps[side];
+                if (heap.minPriority() >= _best) {
+                    heap.clear(n);
+                    continue;
+                }
+                int v = heap.poll();
+                double d = _dist[side][v];
+                if (_stamps[1 - side][v] == _round
+                    && d + _dist[1 - side][v] < _best) {
+                    _best = d + _dist[1 - side][v];
+                    _meet = v;
+                }
+                int[] offsets = side == 0 ? _upOffsets : _downOffsets;
+                int[] arcs = side == 0 ? _upArcs : _downArcs;
+                int[] ends = side == 0 ? _head : _tail;
+                for (int k = offsets[v]; k < offsets[v + 1]; k += 1) {
+                    int a = arcs[k];
+                    label(side, ends[a], d + _weight[a], a);
+                }
+            }
+        }
+
+        /** Records that the search on SIDE reaches V with distance D via
+         *  arc PARENT, if that is better than its current label. */
+        private void label(int side, int v, double d, int parent) {
+            if (_stamps[side][v] == _round && _dist[side][v] <= d) {
+                return;
+            }
+            _stamps[side][v] = _round;
+            _dist[side][v] = d;
+            _parents[side][v] = parent;
+            _heaps[side].addOrDecrease(v, d);
+        }
+
+        /** Tentative distances from the source (side 0) and to the target
+         *  (side 1), valid where the stamp is the current round. */
+        private final double[][] _dist = new double[2][];
+        /** The arc by which each side last labeled each vertex, or -1 for
+         *  its starting vertex. */
+        private final int[][] _parents = new int[2][];
+        /** The round in which each side last labeled each vertex. */
+        private final int[][] _stamps = new int[2][];
+        /** Each side's unsettled labeled vertices. */
+        private final IntHeap[] _heaps = new IntHeap[2];
+        /** The current query. */
+        private int _round;
+        /** The length of the shortest path found. */
+        private double _best;
+        /** The highest-ranked vertex on that path, or -1 if none. */
+        private int _meet;
+    }
+
+    /** Each thread's search state. */
+    private final ThreadLocal<Search> _searches = new ThreadLocal<Search>() {
+            @Override
+            protected Search initialValue() {
+                return new Search(_rank.length);
+            }
+        };
+
+    /** Number of vertices a witness search may settle before giving up
+     *  (and adding the shortcut it was trying to avoid). */
+    private static final int WITNESS_SETTLED = 500;
+    /** The smaller limit used when only counting shortcuts to compute
+     *  priorities, where an occasional extra shortcut does little harm. */
+    private static final int SIMULATED_SETTLED = 20;
+    /** Assumed size of an object reference, for memoryBytes. */
+    private static final int REFERENCE_BYTES = 8;
+
+    /** The snapshot of the graph I index. */
+    private final CsrGraph<VLabel, ELabel> _graph;
+    /** Preprocessing time, in nanoseconds. */
+    private final long _preprocessingNanos;
+
+    /** Number of arcs: original edges (one arc per direction of an
+     *  undirected edge) followed by shortcuts. */
+    private int _arcs;
+    /** Number of arcs that are not shortcuts. */
+    private final int _originalArcs;
+    /** The vertex each arc leaves. */
+    private int[] _tail = new int[0];
+    /** The vertex each arc enters. */
+    private int[] _head = new int[0];
+    /** The weight of each arc. */
+    private double[] _weight = new double[0];
+    /** For shortcuts, the arc into the contracted vertex, else -1. */
+    private int[] _first = new int[0];
+    /** For shortcuts, the arc out of the contracted vertex, else -1. */
+    private int[] _second = new int[0];
+    /** For other arcs, the original edge each stands for, else null. */
+    private Object[] _edges = new Object[0];
+
+    /** The order in which each vertex was contracted. */
+    private int[] _rank;
+    /** Arcs leaving vertex v for higher ranks are
+     *  _upArcs[_upOffsets[v] .. _upOffsets[v+1]-1]. */
+    private int[] _upOffsets, _upArcs;
+    /** Arcs entering vertex v from higher ranks are
+     *  _downArcs[_downOffsets[v] .. _downOffsets[v+1]-1]. */
+    private int[] _downOffsets, _downArcs;
+
+    /** During preprocessing, the arcs leaving and entering each vertex,
+     *  possibly including arcs to contracted vertices. */
+    private IntList[] _out, _in;
+    /** During preprocessing, the number of contracted neighbors of each
+     *  vertex. */
+    private int[] _contractedNeighbors;
+    /** During preprocessing, one more than the largest depth of a
+     *  contracted neighbor of each vertex (0 if none). */
+    private int[] _depth;
+    /** Witness search labels, valid where _witnessStamps holds the current
+     *  _witnessRound. */
+    private double[] _witnessDist;
+    /** The witness search that last labeled each vertex. */
+    private int[] _witnessStamps;
+    /** The current witness search. */
+    private int _witnessRound;
+    /** The witness search's fringe. */
+    private IntHeap _witnessHeap;
+}
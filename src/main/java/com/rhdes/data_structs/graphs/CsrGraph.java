@@ -0,0 +1,379 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/** An immutable snapshot of a Graph stored in compressed sparse row
+ *  (CSR) form.  The vertices of the snapshot are numbered 0 .. N-1, and
+ *  the outgoing edges of vertex i occupy the contiguous slots
+ *  offset(i) .. offset(i+1)-1 of parallel target, label, and edge
+ *  arrays (and likewise for incoming edges), so scanning the
+ *  neighbors of a vertex reads consecutive memory rather than chasing
+ *  list nodes.
+ *
+ *  A CsrGraph shares its Vertex and Edge objects with the graph it was
+ *  built from, so vertices and edges of the original may be passed to
+ *  it directly, and anything that works on a Graph (Traversal,
+ *  Graphs.shortestPath) runs on it unchanged.  Later changes to the
+ *  original graph are not reflected in the snapshot.  All operations
+ *  that would modify a CsrGraph throw UnsupportedOperationException.
+ *  @author Ron Desmond
+ */
+public class CsrGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
+
+    /** A snapshot of the current contents of G. */
+    public CsrGraph(Graph<VLabel, ELabel> G) {
+        _directed = G.isDirected();
+        int n = G.vertexSize();
+        _verts = new Object[n];
+        int k = 0;
+        for (Vertex v: G.vertices()) {
+            _verts[k] = v;
+            k += 1;
+        }
+        _edges = new Object[G.edgeSize()];
+        k = 0;
+        for (Edge e: G.edges()) {
+            _edges[k] = e;
+            k += 1;
+        }
+
+        _outOffsets = new int[n + 1];
+        for (int i = 0; i < n; i += 1) {
+            _outOffsets[i + 1] = _outOffsets[i] + G.outDegree(vertex(i));
+        }
+        _outTargets = new int[_outOffsets[n]];
+        _outEdges = new Object[_outOffsets[n]];
+        _outLabels = new Object[_outOffsets[n]];
+        for (int i = 0; i < n; i += 1) {
+            Vertex v = vertex(i);
+            fill(_outOffsets[i], G.outEdges(v), v,
+                 _outTargets, _outEdges, _outLabels);
+        }
+
+        if (_directed) {
+            _inOffsets = new int[n + 1];
+            for (int i = 0; i < n; i += 1) {
+                _inOffsets[i + 1] = _inOffsets[i] + G.inDegree(vertex(i));
+            }
+            _inSources = new int[_inOffsets[n]];
+            _inEdges = new Object[_inOffsets[n]];
+            _inLabels = new Object[_inOffsets[n]];
+            for (int i = 0; i < n; i += 1) {
+                Vertex v = vertex(i);
+                fill(_inOffsets[i], G.inEdges(v), v,
+                     _inSources, _inEdges, _inLabels);
+            }
+        } else {
+            _inOffsets = _outOffsets;
+            _inSources = _outTargets;
+            _inEdges = _outEdges;
+            _inLabels = _outLabels;
+        }
+    }
+
+    /** Stores EDGES, which are incident on V, in consecutive slots
+     *  starting at START of ENDS (the index of the opposite end of each
+     *  edge), EDGEARR, and LABELS. */
+    private void fill(int start, Iteration<Edge> edges, Vertex v,
+                      int[] ends, Object[] edgeArr, Object[] labels) {
+        int k = start;
+        for (Edge e: edges) {
+            ends[k] = index(e.getV(v));
+            edgeArr[k] = e;
+            labels[k] = e.getLabel();
+            k += 1;
+        }
+    }
+
+    /*=====  Int-indexed access, for algorithms in this package =====*/
+
+    /** Returns the index of V in me, or -1 if V is not one of my vertices.
+     *  My vertices have the indices they had in the original graph when I
+     *  was built. */
+    @Override
+    public int index(Vertex v) {
+        int i = v.id();
+        if (i >= 0 && i < _verts.length && _verts[i] == v) {
+            return i;
+        }
+        Integer j = renumbered().get(v);
+        return j == null ? -1 : j;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Vertex vertex(int i) {
+        return (Vertex) _verts[i];
+    }
+
+    /** Returns a map from each of my vertices to its index, for use when
+     *  a vertex's index in the original graph has changed since I was
+     *  built. */
+    private synchronized HashMap<Vertex, Integer> renumbered() {
+        if (_renumbered == null) {
+            _renumbered = new HashMap<Vertex, Integer>();
+            for (int i = 0; i < _verts.length; i += 1) {
+                _renumbered.put(vertex(i), i);
+            }
+        }
+        return _renumbered;
+    }
+
+    /** Returns the first outgoing-edge slot of the vertex with index I.
+     *  The outgoing slots of I end just before outStart(I + 1). */
+    int outStart(int i) {
+        return _outOffsets[i];
+    }
+
+    /** Returns the index of the vertex that the outgoing edge in SLOT
+     *  enters. */
+    int outTarget(int slot) {
+        return _outTargets[slot];
+    }
+
+    /** Returns the outgoing edge in SLOT. */
+    @SuppressWarnings("unchecked")
+    Edge outEdge(int slot) {
+        return (Edge) _outEdges[slot];
+    }
+
+    /** Returns the label of the outgoing edge in SLOT. */
+    @SuppressWarnings("unchecked")
+    ELabel outLabel(int slot) {
+        return (ELabel) _outLabels[slot];
+    }
+
+    /** Returns the first incoming-edge slot of the vertex with index I.
+     *  The incoming slots of I end just before inStart(I + 1). */
+    int inStart(int i) {
+        return _inOffsets[i];
+    }
+
+    /** Returns the index of the vertex that the incoming edge in SLOT
+     *  exits. */
+    int inSource(int slot) {
+        return _inSources[slot];
+    }
+
+    /** Returns the incoming edge in SLOT. */
+    @SuppressWarnings("unchecked")
+    Edge inEdge(int slot) {
+        return (Edge) _inEdges[slot];
+    }
+
+    /** Returns the label of the incoming edge in SLOT. */
+    @SuppressWarnings("unchecked")
+    ELabel inLabel(int slot) {
+        return (ELabel) _inLabels[slot];
+    }
+
+    /** Returns the weights that EWEIGHTER gives the labels of my outgoing
+     *  edges, by slot. */
+    double[] outWeights(Weighting<? super ELabel> eweighter) {
+        return weights(_outLabels, eweighter);
+    }
+
+    /** Returns the weights that EWEIGHTER gives the labels of my incoming
+     *  edges, by slot. */
+    double[] inWeights(Weighting<? super ELabel> eweighter) {
+        return weights(_inLabels, eweighter);
+    }
+
+    /** Returns the weights EWEIGHTER gives to each of LABELS. */
+    @SuppressWarnings("unchecked")
+    private static <ELabel> double[] weights(Object[] labels,
+                                            Weighting<? super ELabel>
+                                            eweighter) {
+        double[] result = new double[labels.length];
+        for (int k = 0; k < labels.length; k += 1) {
+            result[k] = eweighter.weight((ELabel) labels[k]);
+        }
+        return result;
+    }
+
+    /*=====  Graph methods =====*/
+
+    @Override
+    public CsrGraph<VLabel, ELabel> freeze() {
+        return this;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _verts.length;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edges.length;
+    }
+
+    @Override
+    public int outDegree(Vertex v) {
+        int i = index(v);
+        return _outOffsets[i + 1] - _outOffsets[i];
+    }
+
+    @Override
+    public int inDegree(Vertex v) {
+        int i = index(v);
+        return _inOffsets[i + 1] - _inOffsets[i];
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v) {
+        int i = index(u), j = index(v);
+        for (int k = _outOffsets[i]; k < _outOffsets[i + 1]; k += 1) {
+            if (_outTargets[k] == j) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v, ELabel label) {
+        int i = index(u), j = index(v);
+        for (int k = _outOffsets[i]; k < _outOffsets[i + 1]; k += 1) {
+            if (_outTargets[k] == j && _outLabels[k] == label) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Vertex add(VLabel label) {
+        throw new UnsupportedOperationException("graph is frozen");
+    }
+
+    @Override
+    public Edge add(Vertex from, Vertex to, ELabel label) {
+        throw new UnsupportedOperationException("graph is frozen");
+    }
+
+    @Override
+    public void remove(Vertex v) {
+        throw new UnsupportedOperationException("graph is frozen");
+    }
+
+    @Override
+    public void remove(Edge e) {
+        throw new UnsupportedOperationException("graph is frozen");
+    }
+
+    @Override
+    public void remove(Vertex v1, Vertex v2) {
+        throw new UnsupportedOperationException("graph is frozen");
+    }
+
+    @Override
+    public Iteration<Vertex> vertices() {
+        return Iteration.iteration(_verts, 0, _verts.length);
+    }
+
+    @Override
+    public Iteration<Vertex> successors(Vertex v) {
+        return new EndIteration(_outTargets, _outOffsets, index(v));
+    }
+
+    @Override
+    public Iteration<Vertex> predecessors(Vertex v) {
+        return new EndIteration(_inSources, _inOffsets, index(v));
+    }
+
+    @Override
+    public Iteration<Edge> edges() {
+        return Iteration.iteration(_edges, 0, _edges.length);
+    }
+
+    @Override
+    public Iteration<Edge> outEdges(Vertex v) {
+        int i = index(v);
+        return Iteration.iteration(_outEdges, _outOffsets[i],
+                                   _outOffsets[i + 1]);
+    }
+
+    @Override
+    public Iteration<Edge> inEdges(Vertex v) {
+        int i = index(v);
+        return Iteration.iteration(_inEdges, _inOffsets[i],
+                                   _inOffsets[i + 1]);
+    }
+
+    @Override
+    public void orderEdges(Comparator<ELabel> comparator) {
+        throw new UnsupportedOperationException("graph is frozen");
+    }
+
+    /** An iteration over the vertices at the far ends of one vertex's
+     *  slots in an adjacency array. */
+    private class EndIteration extends Iteration<Vertex> {
+        /** Iterates over the vertices whose indices are in ENDS, over the
+         *  slots that OFFSETS assigns to the vertex with index I. */
+        EndIteration(int[] ends, int[] offsets, int i) {
+            _ends = ends;
+            _next = offsets[i];
+            _end = offsets[i + 1];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next < _end;
+        }
+
+        @Override
+        public Vertex next() {
+            if (_next >= _end) {
+                throw new NoSuchElementException();
+            }
+            _next += 1;
+            return vertex(_ends[_next - 1]);
+        }
+
+        /** The indices of the vertices at the far ends of each slot. */
+        private final int[] _ends;
+        /** My next slot. */
+        private int _next;
+        /** The slot just past my last one. */
+        private final int _end;
+    }
+
+    /** True iff the graph I was built from is directed. */
+    private final boolean _directed;
+    /** My vertices, by index. */
+    private final Object[] _verts;
+    /** Maps each of my vertices to its index, or null if not yet
+     *  needed. */
+    private HashMap<Vertex, Integer> _renumbered;
+    /** All my edges. */
+    private final Object[] _edges;
+
+    /** Outgoing slots of vertex i are _outOffsets[i] .. _outOffsets[i+1]-1.
+     *  There are vertexSize() + 1 offsets. */
+    private final int[] _outOffsets;
+    /** Index of the vertex entered by the edge in each outgoing slot. */
+    private final int[] _outTargets;
+    /** The edge in each outgoing slot. */
+    private final Object[] _outEdges;
+    /** The label of the edge in each outgoing slot. */
+    private final Object[] _outLabels;
+
+    /** Incoming slots of vertex i are _inOffsets[i] .. _inOffsets[i+1]-1.
+     *  In an undirected snapshot, the incoming arrays are the outgoing
+     *  ones. */
+    private final int[] _inOffsets;
+    /** Index of the vertex exited by the edge in each incoming slot. */
+    private final int[] _inSources;
+    /** The edge in each incoming slot. */
+    private final Object[] _inEdges;
+    /** The label of the edge in each incoming slot. */
+    private final Object[] _inLabels;
+}
@@ -0,0 +1,30 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.List;
+
+/** An unchecked exception signaling that a graph required to be acyclic
+ *  has a cycle.  It carries one such cycle.
+ *  @author Ron Desmond
+ */
+public class CycleException extends RuntimeException {
+
+    /** A CycleException reporting CYCLE, a list of vertices v0, v1, ...,
+     *  vk such that there are edges v0->v1, v1->v2, ..., vk->v0. */
+    public CycleException(List<?> cycle) {
+        super("graph has a cycle of " + cycle.size() + " vertices");
+        _cycle = cycle;
+    }
+
+    /** Returns the cycle I report, as a list of the vertices on it, in
+     *  order.  Each vertex has an edge to the next, and the last to the
+     *  first. */
+    public List<?> cycle() {
+        return _cycle;
+    }
+
+    /** The cycle I report. */
+    private final List<?> _cycle;
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,282 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Operations on directed acyclic graphs (DAGs): topological ordering and
+ *  running a job per vertex in dependency order.  An edge u->v means
+ *  that u must come before v.  Each operation runs over a CsrGraph
+ *  snapshot of the graph (G.freeze()), none recurses, and each throws
+ *  CycleException, reporting a cycle, if the graph is not acyclic.  The
+ *  graph must not change while they run.
+ *  @author Ron Desmond
+ */
+public final class Dags {
+
+    /** A job to be run on each vertex of a DAG. */
+    public interface Job<VLabel, ELabel> {
+        /** Performs this job on V. */
+        void run(Graph<VLabel, ELabel>.Vertex v) throws Exception;
+    }
+
+    /** Returns the vertices of G in topological order: each vertex
+     *  precedes all its successors.  Uses Kahn's algorithm, which
+     *  repeatedly removes a vertex with no remaining incoming edges;
+     *  among those, vertices are taken first-in, first-out, starting in
+     *  order of G.index.  Throws CycleException if G has a cycle. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Vertex>
+    topologicalSort(DirectedGraph<VLabel, ELabel> G) {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int[] order = order(csr);
+        ArrayList<Graph<VLabel, ELabel>.Vertex> result =
+            new ArrayList<Graph<VLabel, ELabel>.Vertex>(order.length);
+        for (int v : order) {
+            result.add(csr.vertex(v));
+        }
+        return result;
+    }
+
+    /** Runs JOB on every vertex of G using EXECUTOR, running each vertex
+     *  only after all its predecessors have finished, and returns when
+     *  all are done.  Each vertex has an atomic count of its unfinished
+     *  predecessors; the job that brings a successor's count to 0 submits
+     *  it at once, so independent vertices run in parallel as soon as
+     *  they are ready, with no waiting for whole levels of G to finish.
+     *  A thread that finishes a vertex goes straight on to one of the
+     *  successors it made ready.  EXECUTOR may run tasks on the thread
+     *  that submits them; the stack does not grow with the length of
+     *  dependency chains either way.
+     *
+     *  Checks for cycles before running anything, throwing
+     *  CycleException if there is one.  If a job throws an exception, no
+     *  further jobs are started; once those already running finish, this
+     *  method throws an ExecutionException whose cause is the first such
+     *  exception. */
+    public static <VLabel, ELabel> void
+    execute(DirectedGraph<VLabel, ELabel> G, Job<VLabel, ELabel> job,
+            Executor executor)
+        throws InterruptedException, ExecutionException {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        order(csr);
+        Execution<VLabel, ELabel> execution =
+            new Execution<VLabel, ELabel>(csr, job, executor);
+        execution.run();
+    }
+
+    /** Returns the vertex indices of G in topological order, found by
+     *  Kahn's algorithm, or throws CycleException. */
+    private static int[] order(CsrGraph<?, ?> G) {
+        int n = G.vertexSize();
+        int[] inDegree = new int[n];
+        int[] order = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v += 1) {
+            inDegree[v] = G.inStart(v + 1) - G.inStart(v);
+            if (inDegree[v] == 0) {
+                order[tail] = v;
+                tail += 1;
+            }
+        }
+        for (int head = 0; head < tail; head += 1) {
+            int v = order[head];
+            for (int k = G.outStart(v); k < G.outStart(v + 1); k += 1) {
+                int w = G.outTarget(k);
+                inDegree[w] -= 1;
+                if (inDegree[w] == 0) {
+                    order[tail] = w;
+                    tail += 1;
+                }
+            }
+        }
+        if (tail < n) {
+            throw new CycleException(cycle(G, inDegree));
+        }
+        return order;
+    }
+
+    /** Returns a cycle in G, given the in-degrees INDEGREE remaining when
+     *  Kahn's algorithm got stuck.  Every vertex whose count is still
+     *  positive has a predecessor whose count is too, so walking
+     *  backwards through such vertices must eventually repeat one. */
+    private static List<Object> cycle(CsrGraph<?, ?> G, int[] inDegree) {
+        int n = G.vertexSize();
+        int v;
+        for (v = 0; inDegree[v] == 0; v += 1) {
+        }
+        int[] step = new int[n];
+        IntList walk = new IntList();
+        while (step[v] == 0) {
+            walk.add(v);
+            step[v] = walk.size();
+            int k;
+            for (k = G.inStart(v); inDegree[G.inSource(k)] == 0; k += 1) {
+            }
+            v = G.inSource(k);
+        }
+        ArrayList<Object> result = new ArrayList<Object>();
+        result.add(G.vertex(v));
+        for (int i = walk.size() - 1; i >= step[v]; i -= 1) {
+            result.add(G.vertex(walk.get(i)));
+        }
+        return result;
+    }
+
+    /** The state of one call to execute. */
+    private static class Execution<VLabel, ELabel> {
+
+        /** An execution of JOB on the vertices of acyclic G on
+         *  EXECUTOR. */
+        Execution(CsrGraph<VLabel, ELabel> G, Job<VLabel, ELabel> job,
+                  Executor executor) {
+            _graph = G;
+            _job = job;
+            _executor = executor;
+            int n = G.vertexSize();
+            _waiting = new AtomicIntegerArray(n);
+            for (int v = 0; v < n; v += 1) {
+                _waiting.set(v, G.inStart(v + 1) - G.inStart(v));
+            }
+        }
+
+        /** Runs my job on all vertices, returning when all are done. */
+        void run() throws InterruptedException, ExecutionException {
+            int n = _graph.vertexSize();
+            if (n == 0) {
+                return;
+            }
+            IntList sources = new IntList();
+            for (int v = 0; v < n; v += 1) {
+                if (_waiting.get(v) == 0) {
+                    sources.add(v);
+                }
+            }
+            _pending.incrementAndGet();
+            for (int k = 0; k < sources.size(); k += 1) {
+                submit(sources.get(k));
+            }
+            finished();
+            _done.await();
+            if (_failure.get() != null) {
+                throw new ExecutionException(_failure.get());
+            }
+        }
+
+        /** Submits the vertex with index V to my executor.  If the
+         *  executor runs it at once on a thread that is already
+         *  performing vertices (as a direct executor or a caller-runs
+         *  policy does), it is queued there instead, so performing never
+         *  nests. */
+        private void submit(final int v) {
+            if (_failure.get() != null) {
+                return;
+            }
+            _pending.incrementAndGet();
+            try {
+                _executor.execute(new Runnable() {
+                        public void run() {
+                            IntList active = _active.get();
+                            if (active != null) {
+                                active.add(v);
+                            } else {
+                                perform(v);
+                            }
+                        }
+                    });
+            } catch (RuntimeException excp) {
+                fail(excp);
+                finished();
+            }
+        }
+
+        /** Runs my job on the vertex with index V and on any vertices that
+         *  become ready meanwhile and are kept on this thread: the first
+         *  successor each vertex makes ready is kept, and the rest are
+         *  submitted. */
+        private void perform(int v) {
+            IntList work = new IntList();
+            work.add(v);
+            _active.set(work);
+            try {
+                while (!work.isEmpty()) {
+                    performOne(work.pop(), work);
+                }
+            } finally {
+                _active.remove();
+            }
+        }
+
+        /** Runs my job on the vertex with index V, and then makes ready
+         *  each successor that was waiting only for V, adding the first to
+         *  WORK and submitting the rest. */
+        private void performOne(int v, IntList work) {
+            try {
+                if (_failure.get() == null) {
+                    _job.run(_graph.vertex(v));
+                    boolean kept = false;
+                    for (int k = _graph.outStart(v);
+                         k < _graph.outStart(v + 1); k += 1) {
+                        int w = _graph.outTarget(k);
+                        if (_waiting.decrementAndGet(w) == 0) {
+                            if (kept) {
+                                submit(w);
+                            } else {
+                                _pending.incrementAndGet();
+                                work.add(w);
+                                kept = true;
+                            }
+                        }
+                    }
+                }
+            } catch (Throwable excp) {
+                fail(excp);
+            } finally {
+                finished();
+            }
+        }
+
+        /** Records EXCP as the cause of failure, unless there is one
+         *  already. */
+        private void fail(Throwable excp) {
+            _failure.compareAndSet(null, excp);
+        }
+
+        /** Notes the end of one submitted vertex (or of the initial
+         *  submissions), releasing run when nothing remains pending. */
+        private void finished() {
+            if (_pending.decrementAndGet() == 0) {
+                _done.countDown();
+            }
+        }
+
+        /** The graph whose vertices I run. */
+        private final CsrGraph<VLabel, ELabel> _graph;
+        /** The job I run on each vertex. */
+        private final Job<VLabel, ELabel> _job;
+        /** Where I run jobs. */
+        private final Executor _executor;
+        /** The number of unfinished predecessors of each vertex. */
+        private final AtomicIntegerArray _waiting;
+        /** The number of submitted vertices not yet finished, plus one
+         *  while run is still submitting. */
+        private final AtomicInteger _pending = new AtomicInteger();
+        /** Released when all submitted vertices are finished. */
+        private final CountDownLatch _done = new CountDownLatch(1);
+        /** The first exception thrown by a job, or null. */
+        private final AtomicReference<Throwable> _failure =
+            new AtomicReference<Throwable>();
+        /** The vertices waiting to be performed by the current thread, if
+         *  it is performing any. */
+        private final ThreadLocal<IntList> _active =
+            new ThreadLocal<IntList>();
+    }
+
+    /** Not instantiable. */
+    private Dags() {
+    }
+}
@@ -1,10 +1,8 @@
 package com.rhdes.data_structs.graphs;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Collections;
 
 /* Do not add or remove public or protected members, or modify the signatures of
  * any public methods.  You may make methods in Graph abstract, if you want
@@ -44,8 +42,59 @@ public abstract class Graph<VLabel, ELabel> {
             return String.valueOf(_label);
         }
 
+        /** Returns my index in my graph.  See Graph.index. */
+        int id() {
+            return _id;
+        }
+
+        /** Adds E, which exits this vertex, to my outgoing edges. */
+        private void addOut(Edge e) {
+            _out.add(e);
+            if (_targets != null) {
+                _targets.add(e);
+            } else if (_out.size() >= INDEX_THRESHOLD) {
+                _targets = new TargetIndex(_out);
+            }
+        }
+
+        /** Removes E from my outgoing edges. */
+        private void removeOut(Edge e) {
+            _out.remove(e);
+            if (_targets != null) {
+                if (_out.size() < INDEX_THRESHOLD / 4) {
+                    _targets = null;
+                } else {
+                    _targets.remove(e);
+                }
+            }
+        }
+
+        /** Returns one of my outgoing edges that enters V, or null if there
+         *  is none.  The others are reachable through Edge._nextSame when
+         *  I am indexed. */
+        private Edge firstTo(Vertex v) {
+            if (_targets != null) {
+                return _targets.first(v);
+            }
+            for (int k = 0; k < _out.size(); k += 1) {
+                if (_out.get(k).getV1() == v) {
+                    return _out.get(k);
+                }
+            }
+            return null;
+        }
+
         /** The label of the vertex. */
         private final VLabel _label;
+        /** My index in my graph, or -1 if I have been removed. */
+        private int _id = -1;
+        /** The edges that exit this vertex. */
+        private final EdgeList _out = new EdgeList(OUT);
+        /** The edges that enter this vertex. */
+        private final EdgeList _in = new EdgeList(IN);
+        /** Index of _out by target vertex, present only while I have many
+         *  outgoing edges. */
+        private TargetIndex _targets;
     }
 
     /** Represents one of my edges. */
@@ -100,8 +149,258 @@ public abstract class Graph<VLabel, ELabel> {
         /** The label on this edge. */
         private final ELabel _label;
 
+        /** My positions in the list of all edges, the list of edges that
+         *  exit _V0, and the list of edges that enter _V1, or -1 if I am
+         *  not in the graph. */
+        private int _slot = -1, _outSlot = -1, _inSlot = -1;
+
+        /** When my source vertex is indexed, the next of its outgoing edges
+         *  that enters the same vertex as I do. */
+        private Edge _nextSame;
+
+    }
+
+    /** A growable array of edges in which each edge records its own
+     *  position, so that an edge is removed in constant time by moving
+     *  the last edge of the list into its place. */
+    private final class EdgeList {
+
+        /** An empty list whose positions are recorded in the slot of
+         *  each edge selected by KIND (ALL, OUT, or IN). */
+        EdgeList(int kind) {
+            _kind = kind;
+        }
+
+        /** Returns my number of edges. */
+        int size() {
+            return _size;
+        }
+
+        /** Returns my Kth edge. */
+        @SuppressWarnings("unchecked")
+        Edge get(int k) {
+            return (Edge) _items[k];
+        }
+
+        /** Returns true iff E is in me. */
+        boolean contains(Edge e) {
+            int k = slot(e);
+            return k >= 0 && k < _size && _items[k] == e;
+        }
+
+        /** Adds E to my end. */
+        void add(Edge e) {
+            if (_size == _items.length) {
+                _items = Arrays.copyOf(_items, Math.max(4, 2 * _size));
+            }
+            _items[_size] = e;
+            setSlot(e, _size);
+            _size += 1;
+        }
+
+        /** Removes E, which must be in me. */
+        void remove(Edge e) {
+            int k = slot(e);
+            _size -= 1;
+            Edge last = get(_size);
+            _items[k] = last;
+            setSlot(last, k);
+            _items[_size] = null;
+            setSlot(e, -1);
+        }
+
+        /** Sorts my edges by their labels according to COMP. */
+        @SuppressWarnings("unchecked")
+        void sort(final Comparator<ELabel> comp) {
+            Arrays.sort(_items, 0, _size, new Comparator<Object>() {
+                    public int compare(Object e1, Object e2) {
+                        return comp.compare(((Edge) e1).getLabel(),
+                                            ((Edge) e2).getLabel());
+                    }
+                });
+            for (int k = 0; k < _size; k += 1) {
+                setSlot(get(k), k);
+            }
+        }
+
+        /** Returns an iteration over my edges. */
+        Iteration<Edge> iteration() {
+            return Iteration.iteration(_items, 0, _size);
+        }
+
+        /** Returns the position of E recorded for lists of my kind. */
+        private int slot(Edge e) {
+            switch (_kind) {
+            case OUT:
+                return e._outSlot;
+            case IN:
+                return e._inSlot;
+            default:
+                return e._slot;
+            }
+        }
+
+        /** Records K as the position of E in lists of my kind. */
+        private void setSlot(Edge e, int k) {
+            switch (_kind) {
+            case OUT:
+                e._outSlot = k;
+                break;
+            case IN:
+                e._inSlot = k;
+                break;
+            default:
+                e._slot = k;
+                break;
+            }
+        }
+
+        /** Which slot of each edge holds its position in me. */
+        private final int _kind;
+        /** My edges are _items[0 .. _size-1]. */
+        private Object[] _items = NO_EDGES;
+        /** My number of edges. */
+        private int _size;
+    }
+
+    /** An open-addressed hash table, keyed by vertex identity, that maps
+     *  each vertex W to the chain (linked through Edge._nextSame) of the
+     *  edges that exit one particular vertex and enter W. */
+    private final class TargetIndex {
+
+        /** An index of OUT, the outgoing edges of some vertex. */
+        TargetIndex(EdgeList out) {
+            int cap = 16;
+            while (cap < 2 * out.size()) {
+                cap *= 2;
+            }
+            _keys = new Object[cap];
+            _heads = new Object[cap];
+            for (int k = 0; k < out.size(); k += 1) {
+                add(out.get(k));
+            }
+        }
+
+        /** Returns the first indexed edge entering V, or null. */
+        @SuppressWarnings("unchecked")
+        Edge first(Vertex v) {
+            int k = find(v);
+            return k < 0 ? null : (Edge) _heads[k];
+        }
+
+        /** Indexes E. */
+        @SuppressWarnings("unchecked")
+        void add(Edge e) {
+            Vertex v = e.getV1();
+            int k = find(v);
+            if (k >= 0) {
+                e._nextSame = (Edge) _heads[k];
+                _heads[k] = e;
+                return;
+            }
+            if (2 * (_count + 1) > _keys.length) {
+                rehash(2 * _keys.length);
+            }
+            k = home(v);
+            while (_keys[k] != null) {
+                k = (k + 1) & (_keys.length - 1);
+            }
+            _keys[k] = v;
+            _heads[k] = e;
+            e._nextSame = null;
+            _count += 1;
+        }
+
+        /** Removes E, which must be indexed. */
+        @SuppressWarnings("unchecked")
+        void remove(Edge e) {
+            int k = find(e.getV1());
+            if (_heads[k] == e) {
+                _heads[k] = e._nextSame;
+                if (e._nextSame == null) {
+                    delete(k);
+                }
+            } else {
+                Edge prev = (Edge) _heads[k];
+                while (prev._nextSame != e) {
+                    prev = prev._nextSame;
+                }
+                prev._nextSame = e._nextSame;
+            }
+            e._nextSame = null;
+        }
+
+        /** Returns the slot holding key V, or -1 if V is not a key. */
+        private int find(Vertex v) {
+            for (int k = home(v); _keys[k] != null;
+                 k = (k + 1) & (_keys.length - 1)) {
+                if (_keys[k] == v) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        /** Returns the preferred slot for key V. */
+        private int home(Object v) {
+            int h = System.identityHashCode(v) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (_keys.length - 1);
+        }
+
+        /** Empties slot K, shifting back later keys of the same cluster
+         *  so that every key stays reachable from its home slot. */
+        private void delete(int k) {
+            int mask = _keys.length - 1;
+            int hole = k;
+            for (int j = (k + 1) & mask; _keys[j] != null; j = (j + 1) & mask) {
+                int h = home(_keys[j]);
+                if (((j - h) & mask) >= ((j - hole) & mask)) {
+                    _keys[hole] = _keys[j];
+                    _heads[hole] = _heads[j];
+                    hole = j;
+                }
+            }
+            _keys[hole] = null;
+            _heads[hole] = null;
+            _count -= 1;
+        }
+
+        /** Rebuilds me with CAP slots. */
+        private void rehash(int cap) {
+            Object[] keys = _keys, heads = _heads;
+            _keys = new Object[cap];
+            _heads = new Object[cap];
+            for (int j = 0; j < keys.length; j += 1) {
+                if (keys[j] != null) {
+                    int k = home(keys[j]);
+                    while (_keys[k] != null) {
+                        k = (k + 1) & (cap - 1);
+                    }
+                    _keys[k] = keys[j];
+                    _heads[k] = heads[j];
+                }
+            }
+        }
+
+        /** Target vertices, or null for empty slots. */
+        private Object[] _keys;
+        /** The first edge of the chain for the key in the same slot. */
+        private Object[] _heads;
+        /** Number of keys. */
+        private int _count;
     }
 
+    /** Outgoing degree at which a vertex starts indexing its outgoing
+     *  edges by target.  The index is dropped when the degree falls below
+     *  a quarter of this. */
+    private static final int INDEX_THRESHOLD = 32;
+
+    /** Kinds of EdgeList: all of a graph's edges, the edges that exit
+     *  some vertex, and the edges that enter some vertex. */
+    private static final int ALL = 0, OUT = 1, IN = 2;
+    /** The initial contents of every EdgeList. */
+    private static final Object[] NO_EDGES = new Object[0];
+
     /*=====  Methods and variables of Graph =====*/
 
     /** Returns the number of vertices in me. */
@@ -109,6 +408,25 @@ public abstract class Graph<VLabel, ELabel> {
         return _verts.size();
     }
 
+    /** Returns the index of V in me, or -1 if V is not one of my vertices.
+     *  My vertices are numbered 0 .. vertexSize()-1 in the order they
+     *  were added, except that removing a vertex gives the vertex with
+     *  the highest index the index of the removed one.  Indices let
+     *  algorithms keep per-vertex data in arrays. */
+    public int index(Vertex v) {
+        int i = v._id;
+        if (i >= 0 && i < _verts.size() && _verts.get(i) == v) {
+            return i;
+        }
+        return -1;
+    }
+
+    /** Returns the vertex whose index in me is I, where
+     *  0 <= I < vertexSize(). */
+    public Vertex vertex(int i) {
+        return _verts.get(i);
+    }
+
     /** Returns the number of edges in me. */
     public int edgeSize() {
         return _edges.size();
@@ -120,13 +438,13 @@ public abstract class Graph<VLabel, ELabel> {
     /** Returns the number of outgoing edges incident to V. Assumes V is one of
      *  my vertices.  */
     public int outDegree(Vertex v) {
-        return _outEdges.get(v).size();
+        return v._out.size();
     }
 
     /** Returns the number of incoming edges incident to V. Assumes V is one of
      *  my vertices. */
     public int inDegree(Vertex v) {
-        return _inEdges.get(v).size();
+        return v._in.size();
     }
 
     /** Returns outDegree(V). This is simply a synonym, intended for
@@ -135,20 +453,26 @@ public abstract class Graph<VLabel, ELabel> {
         return outDegree(v);
     }
 
-    /** Returns true iff there is an edge (U, V) in me with any label. */
+    /** Returns true iff there is an edge (U, V) in me with any label.
+     *  Takes expected constant time once U has many outgoing edges. */
     public boolean contains(Vertex u, Vertex v) {
-        for (Edge e: _outEdges.get(u)) {
-            if (e.getV1() == v) {
-                return true;
-            }
-        }
-        return false;
+        return u.firstTo(v) != null;
     }
 
     /** Returns true iff there is an edge (U, V) in me with label LABEL. */
     public boolean contains(Vertex u, Vertex v,
                             ELabel label) {
-        for (Edge e: _outEdges.get(u)) {
+        if (u._targets != null) {
+            for (Edge e = u._targets.first(v); e != null; e = e._nextSame) {
+                if (label == e.getLabel()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        EdgeList out = u._out;
+        for (int k = 0; k < out.size(); k += 1) {
+            Edge e = out.get(k);
             if (e.getV1() == v && label == e.getLabel()) {
                 return true;
             }
@@ -160,9 +484,8 @@ public abstract class Graph<VLabel, ELabel> {
      *  incident edges. */
     public Vertex add(VLabel label) {
         Vertex ret = new Vertex(label);
+        ret._id = _verts.size();
         _verts.add(ret);
-        _outEdges.put(ret, new LinkedList<Edge>());
-        _inEdges.put(ret, new LinkedList<Edge>());
         return ret;
     }
 
@@ -174,8 +497,8 @@ public abstract class Graph<VLabel, ELabel> {
                     ELabel label) {
         Edge ret = new Edge(from, to, label);
         _edges.add(ret);
-        _outEdges.get(from).add(ret);
-        _inEdges.get(to).add(ret);
+        from.addOut(ret);
+        to._in.add(ret);
         return ret;
     }
 
@@ -187,72 +510,64 @@ public abstract class Graph<VLabel, ELabel> {
         return add(from, to, null);
     }
 
-    /** Remove V and all adjacent edges, if present. */
+    /** Remove V and all adjacent edges, if present.  Takes time
+     *  proportional to the number of edges incident on V. */
     public void remove(Vertex v) {
-        LinkedList<Edge> iter
-            = new LinkedList<Edge>(_outEdges.get(v));
-        iter.addAll(_inEdges.get(v));
-        while (iter.size() > 0) {
-            remove(iter.get(0));
-            iter.remove();
+        if (index(v) < 0) {
+            return;
         }
-        _outEdges.remove(v);
-        _inEdges.remove(v);
-        _verts.remove(v);
+        while (v._out.size() > 0) {
+            remove(v._out.get(v._out.size() - 1));
+        }
+        while (v._in.size() > 0) {
+            remove(v._in.get(v._in.size() - 1));
+        }
+        Vertex last = _verts.remove(_verts.size() - 1);
+        if (last != v) {
+            last._id = v._id;
+            _verts.set(last._id, last);
+        }
+        v._id = -1;
     }
 
     /** Remove E from me, if present.  E must be between my vertices,
-     *  or the result is undefined.  */
+     *  or the result is undefined.  Takes constant time.  */
     public void remove(Edge e) {
-        try {
-            _edges.remove(e);
-            _outEdges.get(e.getV0()).remove(e);
-            _inEdges.get(e.getV1()).remove(e);
-        } catch (IllegalArgumentException exc) {
-            int unused = 0;
+        if (!_edges.contains(e)) {
+            return;
         }
+        _edges.remove(e);
+        e.getV0().removeOut(e);
+        e.getV1()._in.remove(e);
     }
 
     /** Remove all edges from V1 to V2 from me, if present.  The result is
      *  undefined if V1 and V2 are not among my vertices.  */
     public void remove(Vertex v1, Vertex v2) {
-        for (Edge e: _outEdges.get(v1)) {
-            if (e.getV1() == v2) {
-                try {
-                    remove(e);
-                } catch (IllegalArgumentException exc) {
-                    continue;
-                }
-            }
-        }
-        for (Edge e: _outEdges.get(v2)) {
-            if (e.getV1() == v1) {
-                remove(e);
-            }
+        removeAll(v1, v2);
+        removeAll(v2, v1);
+    }
+
+    /** Remove every edge from U to V. */
+    private void removeAll(Vertex u, Vertex v) {
+        for (Edge e = u.firstTo(v); e != null; e = u.firstTo(v)) {
+            remove(e);
         }
     }
 
-    /** Returns an Iterator over all vertices in arbitrary order. */
+    /** Returns an Iterator over all vertices in order of their indices. */
     public Iteration<Vertex> vertices() {
         return Iteration.iteration(_verts);
     }
 
     /** Returns an iterator over all successors of V. */
     public Iteration<Vertex> successors(Vertex v) {
-        LinkedList<Vertex> getVerts = new LinkedList<Vertex>();
-        for (Edge e: _outEdges.get(v)) {
-            getVerts.add(e.getV(v));
-        }
-        return Iteration.iteration(getVerts);
+        return new FarEnds(v._out.iteration(), v);
     }
 
     /** Returns an iterator over all predecessors of V. */
     public Iteration<Vertex> predecessors(Vertex v) {
-        LinkedList<Vertex> predecessorsSet = new LinkedList<Vertex>();
-        for (Edge e: _inEdges.get(v)) {
-            predecessorsSet.add(e.getV(v));
-        }
-        return Iteration.iteration(predecessorsSet);
+        return new FarEnds(v._in.iteration(), v);
     }
 
     /** Returns successors(V).  This is a synonym typically used on
@@ -263,17 +578,17 @@ public abstract class Graph<VLabel, ELabel> {
 
     /** Returns an iterator over all edges in me. */
     public Iteration<Edge> edges() {
-        return Iteration.iteration(_edges);
+        return _edges.iteration();
     }
 
     /** Returns iterator over all outgoing edges from V. */
     public Iteration<Edge> outEdges(Vertex v) {
-        return Iteration.iteration(_outEdges.get(v));
+        return v._out.iteration();
     }
 
     /** Returns iterator over all incoming edges to V. */
     public Iteration<Edge> inEdges(Vertex v) {
-        return Iteration.iteration(_inEdges.get(v));
+        return v._in.iteration();
     }
 
     /** Returns outEdges(V). This is a synonym typically used
@@ -282,6 +597,13 @@ public abstract class Graph<VLabel, ELabel> {
         return outEdges(v);
     }
 
+    /** Returns an immutable snapshot of my current vertices and edges in
+     *  compressed sparse row form.  The snapshot shares my Vertex and
+     *  Edge objects, and is unaffected by later changes to me. */
+    public CsrGraph<VLabel, ELabel> freeze() {
+        return new CsrGraph<VLabel, ELabel>(this);
+    }
+
     /** Returns the natural ordering on T, as a Comparator.  For
      *  example, if stringComp = Graph.<Integer>naturalOrder(), then
      *  stringComp.compare(x1, y1) is <0 if x1<y1, ==0 if x1=y1, and >0
@@ -301,36 +623,41 @@ public abstract class Graph<VLabel, ELabel> {
      *  addition of edges may cause the edges to be reordered
      *  arbitrarily.  */
     public void orderEdges(Comparator<ELabel> comparator) {
-        final Comparator<ELabel> comp = comparator;
-        Collections.sort(_edges, new Comparator<Edge>() {
-                public int compare(Edge e1, Edge e2) {
-                    return comp.compare(e1.getLabel(), e2.getLabel());
-                }
-            });
-        for (LinkedList<Edge> outEdges: _outEdges.values()) {
-            Collections.sort(outEdges, new Comparator<Edge>() {
-                public int compare(Edge e1, Edge e2) {
-                    return comp.compare(e1.getLabel(), e2.getLabel());
-                }
-            });
+        _edges.sort(comparator);
+        for (Vertex v: _verts) {
+            v._out.sort(comparator);
+            v._in.sort(comparator);
         }
-        for (LinkedList<Edge> inEdges: _inEdges.values()) {
-            Collections.sort(inEdges, new Comparator<Edge>() {
-                public int compare(Edge e1, Edge e2) {
-                    return comp.compare(e1.getLabel(), e2.getLabel());
-                }
-            });
+    }
+
+    /** An iteration over the vertices at the far ends of a sequence of
+     *  edges incident on one vertex, computed as it goes. */
+    private class FarEnds extends Iteration<Vertex> {
+        /** An iteration over the ends of EDGES opposite V. */
+        FarEnds(Iteration<Edge> edges, Vertex v) {
+            _edges = edges;
+            _v = v;
         }
+
+        @Override
+        public boolean hasNext() {
+            return _edges.hasNext();
+        }
+
+        @Override
+        public Vertex next() {
+            return _edges.next().getV(_v);
+        }
+
+        /** The edges whose far ends I deliver. */
+        private final Iteration<Edge> _edges;
+        /** The near end of each of _edges. */
+        private final Vertex _v;
     }
 
-    /** Holds all the vertices in this graph. */
-    private HashSet<Vertex> _verts = new HashSet<Vertex>();
-    /** Maps every vertex to a list of outEdges. */
-    private HashMap<Vertex, LinkedList<Edge>> _outEdges =
-        new HashMap<Vertex, LinkedList<Edge>>();
-    /** Maps every vertex to a list of inEdges. */
-    private HashMap<Vertex, LinkedList<Edge>> _inEdges =
-        new HashMap<Vertex, LinkedList<Edge>>();
-    /** Holds all the edges in this graph. */
-    private LinkedList<Edge> _edges = new LinkedList<Edge>();
+    /** Holds all the vertices in this graph, each at its index. */
+    private ArrayList<Vertex> _verts = new ArrayList<Vertex>();
+    /** Holds all the edges in this graph.  The edges that exit and enter
+     *  each vertex are held by the vertex itself. */
+    private EdgeList _edges = new EdgeList(ALL);
 }
@@ -1,10 +1,14 @@
 package com.rhdes.data_structs.graphs;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.LinkedList;
 import java.util.HashMap;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /** Assorted graph algorithms.
  *  @author Ron Desmond
@@ -27,9 +31,13 @@ public final class Graphs {
      *       minimum path length from V0 to v + H.dist(v, V1)
      *              < minimum path length from V0 to V1.
      *  The final weights of other vertices are not defined.  If V1 is
-     *  unreachable from V0, returns null and sets the minimum path weights of
-     *  all reachable nodes.  The distance to a node unreachable from V0 is
-     *  Double.POSITIVE_INFINITY. */
+     *  unreachable from V0, returns null, sets the minimum path weights of
+     *  all reachable nodes, and sets the weight of V1 to
+     *  Double.POSITIVE_INFINITY.  Vertices the search never reaches are
+     *  not touched at all: the search keeps its own distances in
+     *  per-thread arrays indexed by G.index, stamped with the query that
+     *  wrote them, so a query costs time proportional to the part of G it
+     *  explores rather than to the size of G. */
     public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
     shortestPath(Graph<VLabel, ELabel> G,
                  Graph<VLabel, ELabel>.Vertex V0,
@@ -37,100 +45,327 @@ public final class Graphs {
                  final Distancer<? super VLabel> h,
                  final Weighter<? super VLabel> vweighter,
                  final Weighting<? super ELabel> eweighter) {
-        HashMap<Graph<VLabel, ELabel>.Vertex,
-            Graph<VLabel, ELabel>.Edge> parents = new
-            HashMap<Graph<VLabel, ELabel>.Vertex,
-            Graph<VLabel, ELabel>.Edge>();
-        for (Graph<VLabel, ELabel>.Vertex v: G.vertices()) {
-            vweighter.setWeight(v.getLabel(), Double.POSITIVE_INFINITY);
-        }
-        vweighter.setWeight(V0.getLabel(), 0);
-        PriorityQueue<Graph<VLabel, ELabel>.Vertex> fringe
-            = new PriorityQueue<Graph<VLabel, ELabel>
-            .Vertex>(G.vertexSize(), new Comparator<Graph<VLabel,
-                     ELabel>.Vertex>() {
-                    public int compare(Graph<VLabel, ELabel>.Vertex v1,
-                                            Graph<VLabel, ELabel>.Vertex v2) {
-                        return Double.compare(vweighter
-                                                   .weight(v1.getLabel())
-                                                   + h.dist(v1.getLabel(),
-                                                            V1.getLabel()),
-                                                   vweighter
-                                                   .weight(v2.getLabel())
-                                                   + h.dist(v2.getLabel(),
-                                                            V1.getLabel()));
+        Search search = Search.acquire();
+        try {
+            return search.run(G, V0, V1, h, vweighter, eweighter, null, null);
+        } finally {
+            search.release();
+        }
+    }
+
+    /** Returns a path from V0 to V1 in G of minimum weight, according
+     *  to the edge weighter EWEIGHTER, or null if V1 is unreachable from
+     *  V0.  VLABEL and ELABEL are the types of vertex and edge labels, and
+     *  H must satisfy the conditions given for the 6-argument
+     *  shortestPath.  (For edge labels that are Weighted, LABEL_WEIGHTS
+     *  serves as EWEIGHTER.)
+     *
+     *  Unlike the other versions, this one sets no vertex weights and
+     *  changes nothing outside the query: its distances and parents live
+     *  in state private to the calling thread.  Any number of threads may
+     *  therefore search the same graph at once, provided none modifies
+     *  it meanwhile, and H or EWEIGHTER may themselves call
+     *  shortestPath. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1,
+                 Distancer<? super VLabel> h,
+                 Weighting<? super ELabel> eweighter) {
+        Search search = Search.acquire();
+        try {
+            return search.run(G, V0, V1, h, null, eweighter, null, null);
+        } finally {
+            search.release();
+        }
+    }
+
+    /** Returns up to K shortest loopless paths from V0 to V1 in G, in
+     *  order of increasing weight according to the edge weighter
+     *  EWEIGHTER, or fewer if there are fewer such paths.  VLABEL and
+     *  ELABEL are the types of vertex and edge labels, and H must satisfy
+     *  the conditions given for the 6-argument shortestPath.
+     *
+     *  Uses Yen's algorithm.  Each path after the first is found by
+     *  taking some prefix (the root) of the path before it and searching
+     *  from the last vertex of the root to V1 while avoiding the root's
+     *  other vertices and the next edge of every path already found that
+     *  shares the root.  Those vertices and edges are masked out of the
+     *  searches rather than removed from G, so G is never modified, and,
+     *  as with the 5-argument shortestPath, concurrent calls on one graph
+     *  are safe. */
+    public static <VLabel, ELabel> List<List<Graph<VLabel, ELabel>.Edge>>
+    kShortestPaths(Graph<VLabel, ELabel> G,
+                   Graph<VLabel, ELabel>.Vertex V0,
+                   Graph<VLabel, ELabel>.Vertex V1, int k,
+                   Distancer<? super VLabel> h,
+                   Weighting<? super ELabel> eweighter) {
+        ArrayList<List<Graph<VLabel, ELabel>.Edge>> result =
+            new ArrayList<List<Graph<VLabel, ELabel>.Edge>>();
+        if (k <= 0) {
+            return result;
+        }
+        Search search = Search.acquire();
+        try {
+            List<Graph<VLabel, ELabel>.Edge> first =
+                search.run(G, V0, V1, h, null, eweighter, null, null);
+            if (first == null) {
+                return result;
+            }
+            result.add(new ArrayList<Graph<VLabel, ELabel>.Edge>(first));
+            PriorityQueue<WeightedPath> candidates =
+                new PriorityQueue<WeightedPath>();
+            HashSet<List<?>> seen = new HashSet<List<?>>();
+            seen.add(result.get(0));
+            HashSet<Object> avoidVertices = new HashSet<Object>();
+            HashSet<Object> avoidEdges = new HashSet<Object>();
+            while (result.size() < k) {
+                List<Graph<VLabel, ELabel>.Edge> last =
+                    result.get(result.size() - 1);
+                avoidVertices.clear();
+                Graph<VLabel, ELabel>.Vertex spur = V0;
+                double rootWeight = 0.0;
+                for (int i = 0; i < last.size(); i += 1) {
+                    List<Graph<VLabel, ELabel>.Edge> root = last.subList(0, i);
+                    avoidEdges.clear();
+                    for (List<Graph<VLabel, ELabel>.Edge> p : result) {
+                        if (p.size() > i && p.subList(0, i).equals(root)) {
+                            avoidEdges.add(p.get(i));
+                        }
+                    }
+                    List<Graph<VLabel, ELabel>.Edge> rest =
+                        search.run(G, spur, V1, h, null, eweighter,
+                                   avoidVertices, avoidEdges);
+                    if (rest != null) {
+                        ArrayList<Graph<VLabel, ELabel>.Edge> path =
+                            new ArrayList<Graph<VLabel, ELabel>.Edge>(root);
+                        path.addAll(rest);
+                        if (seen.add(path)) {
+                            candidates.add(
+                                new WeightedPath(rootWeight
+                                                 + weight(rest, eweighter),
+                                                 path));
+                        }
                     }
-                });
-        traverse(G, V0, V1, h, vweighter, eweighter, fringe, parents);
-        if (vweighter.weight(V1.getLabel()) == Double.POSITIVE_INFINITY) {
-            return null;
-        } else {
-            return getPath(parents, V0, V1);
+                    Graph<VLabel, ELabel>.Edge e = last.get(i);
+                    avoidVertices.add(spur);
+                    rootWeight += eweighter.weight(e.getLabel());
+                    spur = e.getV(spur);
+                }
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                @SuppressWarnings("unchecked")
+                List<Graph<VLabel, ELabel>.Edge> next =
+                    (List<Graph<VLabel, ELabel>.Edge>) candidates.poll()._path;
+                result.add(next);
+            }
+            return result;
+        } finally {
+            search.release();
         }
     }
-    /** Traverses G finding a path from V0 to V1, updating it to a
-     *  hashmap PARENTS, using H, VWEIGHTER, and EWEIGHTER to compare
-     *  vertices according to their type VLABEL and ELABEL, then
-     *  putting them into the FRINGE. */
-    private static <VLabel, ELabel> void traverse(Graph<VLabel, ELabel> G,
-                                 Graph<VLabel, ELabel>.Vertex V0,
-                                 Graph<VLabel, ELabel>.Vertex V1,
-                                 final Distancer<? super VLabel> h,
-                                 final Weighter<? super VLabel> vweighter,
-                                 final Weighting<? super ELabel> eweighter,
-                                 PriorityQueue<Graph<VLabel,
-                                 ELabel>.Vertex> fringe,
-                                 HashMap<Graph<VLabel, ELabel>.Vertex,
-                                 Graph<VLabel, ELabel>.Edge> parents) {
-        for (Graph<VLabel, ELabel>.Vertex v: G.vertices()) {
-            fringe.add(v);
-        }
-        while (fringe.size() > 0) {
-            Graph<VLabel, ELabel>.Vertex v = fringe.poll();
-            if (v == V1) {
-                break;
-            } else {
-                for (Graph<VLabel, ELabel>.Edge e
-                         : G.outEdges(v)) {
-                    double pathWeight = vweighter.weight(v.getLabel())
-                        + eweighter.weight(e.getLabel());
+
+    /** Returns the total weight of PATH according to EWEIGHTER. */
+    private static <VLabel, ELabel> double
+    weight(List<Graph<VLabel, ELabel>.Edge> path,
+           Weighting<? super ELabel> eweighter) {
+        double result = 0.0;
+        for (Graph<VLabel, ELabel>.Edge e : path) {
+            result += eweighter.weight(e.getLabel());
+        }
+        return result;
+    }
+
+    /** A candidate path for kShortestPaths, ordered by weight. */
+    private static class WeightedPath implements Comparable<WeightedPath> {
+
+        /** A candidate PATH of weight WEIGHT. */
+        WeightedPath(double weight, List<?> path) {
+            _weight = weight;
+            _path = path;
+        }
+
+        @Override
+        public int compareTo(WeightedPath other) {
+            return Double.compare(_weight, other._weight);
+        }
+
+        /** The weight of my path. */
+        private final double _weight;
+        /** My path. */
+        private final List<?> _path;
+    }
+
+    /** The state of an A* search from Graphs.shortestPath, kept per
+     *  thread and reused from one query to the next.  Distances, parent
+     *  edges, and the fringe are indexed by G.index(v), and an entry is
+     *  valid only if its stamp is the current query's, so starting a
+     *  query clears nothing. */
+    private static class Search {
+
+        /** Returns the calling thread's search state, or a new one if that
+         *  is in use by an enclosing query on the same thread (as when H or
+         *  a weighter itself calls shortestPath). */
+        static Search acquire() {
+            Search search = SEARCHES.get();
+            if (search._busy) {
+                search = new Search();
+            }
+            search._busy = true;
+            return search;
+        }
+
+        /** Marks me as no longer in use, dropping my references to the
+         *  edges of the last query so that I do not keep its graph
+         *  alive. */
+        void release() {
+            forget();
+            _busy = false;
+        }
+
+        /** Returns a shortest path from V0 to V1 in G, as for
+         *  Graphs.shortestPath, setting vertex weights through VWEIGHTER
+         *  unless it is null.  The search treats the vertices in
+         *  AVOIDVERTICES and the edges in AVOIDEDGES, either of which may
+         *  be null, as absent from G. */
+        <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+        run(Graph<VLabel, ELabel> G, Graph<VLabel, ELabel>.Vertex V0,
+            Graph<VLabel, ELabel>.Vertex V1, Distancer<? super VLabel> h,
+            Weighter<? super VLabel> vweighter,
+            Weighting<? super ELabel> eweighter,
+            Set<?> avoidVertices, Set<?> avoidEdges) {
+            int s = G.index(V0), t = G.index(V1);
+            if (s < 0 || t < 0) {
+                throw new IllegalArgumentException("vertex not in graph");
+            }
+            start(G.vertexSize());
+            label(s, 0.0, null);
+            if (vweighter != null) {
+                vweighter.setWeight(V0.getLabel(), 0);
+            }
+            _fringe.add(s, h.dist(V0.getLabel(), V1.getLabel()));
+            while (!_fringe.isEmpty()) {
+                int vi = _fringe.poll();
+                if (vi == t) {
+                    break;
+                }
+                Graph<VLabel, ELabel>.Vertex v = G.vertex(vi);
+                double dist = _dist[vi];
+                for (Graph<VLabel, ELabel>.Edge e : G.outEdges(v)) {
                     Graph<VLabel, ELabel>.Vertex child = e.getV(v);
-                    if (vweighter.weight(child.getLabel())
-                        > pathWeight) {
-                        boolean isIn = false;
-                        if (fringe.contains(child)) {
-                            fringe.remove(child);
-                            isIn = true;
+                    if (avoidEdges != null && avoidEdges.contains(e)
+                        || avoidVertices != null
+                           && avoidVertices.contains(child)) {
+                        continue;
+                    }
+                    int ci = G.index(child);
+                    double pathWeight = dist + eweighter.weight(e.getLabel());
+                    if (pathWeight < distance(ci)) {
+                        label(ci, pathWeight, e);
+                        if (vweighter != null) {
+                            vweighter.setWeight(child.getLabel(), pathWeight);
                         }
-                        vweighter.setWeight(child.getLabel(), pathWeight);
-                        parents.put(child, e);
-                        fringe.add(child);
+                        _fringe.addOrDecrease(ci, pathWeight
+                                              + h.dist(child.getLabel(),
+                                                       V1.getLabel()));
                     }
                 }
             }
+            if (distance(t) == Double.POSITIVE_INFINITY) {
+                if (vweighter != null) {
+                    vweighter.setWeight(V1.getLabel(),
+                                        Double.POSITIVE_INFINITY);
+                }
+                return null;
+            }
+            return path(G, s, t);
         }
-    }
 
+        /** Begins a new query over a graph with N vertices. */
+        private void start(int n) {
+            forget();
+            if (_stamps.length < n) {
+                int cap = Math.max(n, 2 * _stamps.length);
+                _dist = new double[cap];
+                _parents = new Object[cap];
+                _stamps = new int[cap];
+                _round = 0;
+            }
+            _round += 1;
+            if (_round == 0) {
+                Arrays.fill(_stamps, 0);
+                _round = 1;
+            }
+            _fringe.clear(n);
+        }
 
-    /** Returns the path from CURRENT navigating iteratively with PARENTS
-     *  using types VLABEL and ELABEL beginning from START to END. */
-    private static
-        <VLabel, ELabel>
-    List<Graph<VLabel, ELabel>.Edge>
-    getPath(HashMap
-            <Graph<VLabel, ELabel>.Vertex,
-            Graph<VLabel, ELabel>.Edge> parents,
-            Graph<VLabel, ELabel>.Vertex start,
-            Graph<VLabel, ELabel>.Vertex end) {
-        LinkedList<Graph<VLabel, ELabel>.Edge> ret =
-            new LinkedList<Graph<VLabel, ELabel>.Edge>();
-        Graph<VLabel, ELabel>.Vertex current = end;
-        while (parents.get(current).getV(current) != start) {
-            ret.addFirst(parents.get(current));
-            current = parents.get(current).getV(current);
-        }
-        ret.addFirst(parents.get(current));
-        return ret;
+        /** Returns the distance from the current query's source to the
+         *  vertex with index V, or infinity if it has not been reached. */
+        private double distance(int v) {
+            return _stamps[v] == _round ? _dist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        /** Records that the vertex with index V is at distance DIST, reached
+         *  through edge PARENT. */
+        private void label(int v, double dist, Object parent) {
+            if (_stamps[v] != _round) {
+                _reached.add(v);
+            }
+            _stamps[v] = _round;
+            _dist[v] = dist;
+            _parents[v] = parent;
+        }
+
+        /** Clears the parent edges of the vertices the last query
+         *  reached. */
+        private void forget() {
+            for (int k = 0; k < _reached.size(); k += 1) {
+                _parents[_reached.get(k)] = null;
+            }
+            _reached.clear();
+        }
+
+        /** Returns the path of parent edges in G from the vertex with index
+         *  S to the vertex with index T. */
+        @SuppressWarnings("unchecked")
+        private <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+        path(Graph<VLabel, ELabel> G, int s, int t) {
+            LinkedList<Graph<VLabel, ELabel>.Edge> result =
+                new LinkedList<Graph<VLabel, ELabel>.Edge>();
+            for (int v = t; v != s; ) {
+                Graph<VLabel, ELabel>.Edge e =
+                    (Graph<VLabel, ELabel>.Edge) _parents[v];
+                result.addFirst(e);
+                v = G.index(e.getV(G.vertex(v)));
+            }
+            return result;
+        }
+
+        /** Each thread's search state. */
+        private static final ThreadLocal<Search> SEARCHES =
+            new ThreadLocal<Search>() {
+                @Override
+                protected Search initialValue() {
+                    return new Search();
+                }
+            };
+
+        /** Tentative distances, by vertex index. */
+        private double[] _dist = new double[0];
+        /** The edge by which each vertex was last reached. */
+        private Object[] _parents = new Object[0];
+        /** The query that last reached each vertex. */
+        private int[] _stamps = new int[0];
+        /** The vertices the last query reached, whose parents are set. */
+        private final IntList _reached = new IntList();
+        /** The current query. */
+        private int _round;
+        /** Reached vertices not yet expanded, keyed by distance plus
+         *  H's estimate of the rest of the way. */
+        private final IntHeap _fringe = new IntHeap();
+        /** True while a query is using me. */
+        private boolean _busy;
     }
 
     /** Returns a path from V0 to V1 in G of minimum weight, according
@@ -151,9 +386,12 @@ public final class Graphs {
      *  This function has the same effect as the 6-argument version of
      *  shortestPath, but uses the .weight and .setWeight methods of
      *  the edges and vertices themselves to determine and set
-     *  weights. If V1 is unreachable from V0, returns null and sets
-     *  the minimum path weights of all reachable nodes.  The distance
-     *  to a node unreachable from V0 is Double.POSITIVE_INFINITY. */
+     *  weights. If V1 is unreachable from V0, returns null, sets the
+     *  minimum path weights of all reachable nodes, and sets the weight
+     *  of V1 to Double.POSITIVE_INFINITY.  Vertices the search never
+     *  reaches are not touched.  Since the weights live in the labels,
+     *  concurrent searches of one graph interfere; the 5-argument
+     *  shortestPath, with LABEL_WEIGHTS, sets no weights and does not. */
     public static
     <VLabel extends Weightable, ELabel extends Weighted>
     List<Graph<VLabel, ELabel>.Edge>
@@ -178,6 +416,214 @@ public final class Graphs {
             });
     }
 
+    /** Returns a path from V0 to V1 in G of minimum weight, according
+     *  to the edge weighter EWEIGHTER, or null if V1 is unreachable from
+     *  V0.  VLABEL and ELABEL are the types of vertex and edge labels.
+     *  Searches forward from V0 along outgoing edges and backward from
+     *  V1 along incoming edges at the same time, stopping once the two
+     *  searches have met and no shorter meeting can remain, which
+     *  typically settles far fewer vertices than shortestPath.
+     *
+     *  Assumes that H is a distance measure between vertices that
+     *  bounds path lengths in both directions and is consistent:
+     *     a. H.dist(v, w) <= shortest path from v to w for any v, w, and
+     *     b. H.dist(v, w) <= H.dist(x, w) + weight of edge (v, x) and
+     *        H.dist(w, x) <= H.dist(w, v) + weight of edge (v, x) for
+     *        any edge (v, x) and vertex w.
+     *  (ZERO_DISTANCER qualifies, as does any metric lower bound.)  The
+     *  two searches are guided by the average of the forward potential
+     *  H.dist(v, V1) and the negated backward potential H.dist(V0, v), so
+     *  that both see the same reduced edge weights.  Unlike shortestPath,
+     *  this sets no vertex weights. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    bidirectionalShortestPath(Graph<VLabel, ELabel> G,
+                              Graph<VLabel, ELabel>.Vertex V0,
+                              Graph<VLabel, ELabel>.Vertex V1,
+                              Distancer<? super VLabel> h,
+                              Weighting<? super ELabel> eweighter) {
+        return new BidirectionalSearch<VLabel, ELabel>(G, V0, V1, h,
+                                                       eweighter).path();
+    }
+
+    /** The state of one bidirectional search over a Graph whose vertices
+     *  and edges are labeled with VLABEL and ELABEL. */
+    private static class BidirectionalSearch<VLabel, ELabel> {
+
+        /** A search for a shortest path from V0 to V1 in G with heuristic H
+         *  and edge weights EWEIGHTER. */
+        BidirectionalSearch(Graph<VLabel, ELabel> G,
+                            Graph<VLabel, ELabel>.Vertex V0,
+                            Graph<VLabel, ELabel>.Vertex V1,
+                            Distancer<? super VLabel> h,
+                            Weighting<? super ELabel> eweighter) {
+            _G = G;
+            _V0 = V0;
+            _V1 = V1;
+            _h = h;
+            _eweighter = eweighter;
+        }
+
+        /** Runs the search and returns a shortest path, or null if there is
+         *  none. */
+        List<Graph<VLabel, ELabel>.Edge> path() {
+            if (_V0 == _V1) {
+                return new LinkedList<Graph<VLabel, ELabel>.Edge>();
+            }
+            _forwardDist.put(_V0, 0.0);
+            _forwardFringe.add(_V0, potential(_V0));
+            _backwardDist.put(_V1, 0.0);
+            _backwardFringe.add(_V1, -potential(_V1));
+            while (!_forwardFringe.isEmpty() && !_backwardFringe.isEmpty()
+                   && _forwardFringe.minPriority()
+                      + _backwardFringe.minPriority() < _best) {
+                if (_forwardFringe.minPriority()
+                    <= _backwardFringe.minPriority()) {
+                    expand(_forwardFringe.poll(), true);
+                } else {
+                    expand(_backwardFringe.poll(), false);
+                }
+            }
+            if (_meet == null) {
+                return null;
+            }
+            LinkedList<Graph<VLabel, ELabel>.Edge> result =
+                new LinkedList<Graph<VLabel, ELabel>.Edge>();
+            for (Graph<VLabel, ELabel>.Vertex v = _meet; v != _V0; ) {
+                Graph<VLabel, ELabel>.Edge e = _forwardParents.get(v);
+                result.addFirst(e);
+                v = e.getV(v);
+            }
+            for (Graph<VLabel, ELabel>.Vertex v = _meet; v != _V1; ) {
+                Graph<VLabel, ELabel>.Edge e = _backwardParents.get(v);
+                result.addLast(e);
+                v = e.getV(v);
+            }
+            return result;
+        }
+
+        /** Relaxes the edges leaving V, if FORWARD, and otherwise the edges
+         *  entering V, recording any better meeting of the searches. */
+        private void expand(Graph<VLabel, ELabel>.Vertex v, boolean forward) {
+            HashMap<Graph<VLabel, ELabel>.Vertex, Double> dist, otherDist;
+            HashMap<Graph<VLabel, ELabel>.Vertex,
+                Graph<VLabel, ELabel>.Edge> parents;
+            IndexedHeap<Graph<VLabel, ELabel>.Vertex> fringe;
+            if (forward) {
+                dist = _forwardDist;
+                otherDist = _backwardDist;
+                parents = _forwardParents;
+                fringe = _forwardFringe;
+            } else {
+                dist = _backwardDist;
+                otherDist = _forwardDist;
+                parents = _backwardParents;
+                fringe = _backwardFringe;
+            }
+            double base = dist.get(v);
+            for (Graph<VLabel, ELabel>.Edge e
+                     : forward ? _G.outEdges(v) : _G.inEdges(v)) {
+                Graph<VLabel, ELabel>.Vertex w = e.getV(v);
+                double d = base + _eweighter.weight(e.getLabel());
+                Double old = dist.get(w);
+                if (old != null && old <= d) {
+                    continue;
+                }
+                dist.put(w, d);
+                parents.put(w, e);
+                fringe.addOrDecrease(w, forward ? d + potential(w)
+                                     : d - potential(w));
+                Double other = otherDist.get(w);
+                if (other != null && d + other < _best) {
+                    _best = d + other;
+                    _meet = w;
+                }
+            }
+        }
+
+        /** Returns the forward potential of V: the average of its estimated
+         *  distance to V1 and its negated estimated distance from V0.  The
+         *  backward potential is its negation. */
+        private double potential(Graph<VLabel, ELabel>.Vertex v) {
+            return (_h.dist(v.getLabel(), _V1.getLabel())
+                    - _h.dist(_V0.getLabel(), v.getLabel())) / 2;
+        }
+
+        /** The graph searched. */
+        private final Graph<VLabel, ELabel> _G;
+        /** The endpoints of the path sought. */
+        private final Graph<VLabel, ELabel>.Vertex _V0, _V1;
+        /** The distance estimate. */
+        private final Distancer<? super VLabel> _h;
+        /** The edge weights. */
+        private final Weighting<? super ELabel> _eweighter;
+
+        /** Best known distances from V0 and to V1. */
+        private final HashMap<Graph<VLabel, ELabel>.Vertex, Double>
+            _forwardDist = new HashMap<Graph<VLabel, ELabel>.Vertex, Double>(),
+            _backwardDist = new HashMap<Graph<VLabel, ELabel>.Vertex, Double>();
+        /** The last edge of the best known path from V0 to, and the first
+         *  edge of the best known path to V1 from, each labeled vertex. */
+        private final HashMap<Graph<VLabel, ELabel>.Vertex,
+            Graph<VLabel, ELabel>.Edge>
+            _forwardParents = new HashMap<Graph<VLabel, ELabel>.Vertex,
+                Graph<VLabel, ELabel>.Edge>(),
+            _backwardParents = new HashMap<Graph<VLabel, ELabel>.Vertex,
+                Graph<VLabel, ELabel>.Edge>();
+        /** Vertices waiting to be expanded by each search, keyed by
+         *  distance plus potential. */
+        private final IndexedHeap<Graph<VLabel, ELabel>.Vertex>
+            _forwardFringe = new IndexedHeap<Graph<VLabel, ELabel>.Vertex>(),
+            _backwardFringe = new IndexedHeap<Graph<VLabel, ELabel>.Vertex>();
+        /** The length of the shortest path found so far. */
+        private double _best = Double.POSITIVE_INFINITY;
+        /** A vertex at which that path passes from one search to the
+         *  other, or null if the searches have not met. */
+        private Graph<VLabel, ELabel>.Vertex _meet;
+    }
+
+    /* Minimum Spanning Forests */
+
+    /** Returns the edges of a minimum spanning forest of G, with edge
+     *  weights given by EWEIGHTER: a minimum spanning tree of each
+     *  connected component of G.  Uses Kruskal's algorithm on a
+     *  union-find structure, over a CsrGraph snapshot of G (G.freeze()).
+     *  Edges of equal weight are preferred in an order fixed by that
+     *  snapshot, so the result is the same as that of the parallel
+     *  version below. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    minimumSpanningForest(UndirectedGraph<VLabel, ELabel> G,
+                          Weighting<? super ELabel> eweighter) {
+        return new SpanningForest<VLabel, ELabel>(G.freeze(), eweighter,
+                                                  null).kruskal();
+    }
+
+    /** Returns the edges of a minimum spanning forest of G, as for
+     *  minimumSpanningForest(G, EWEIGHTER), computed by Boruvka's
+     *  algorithm on POOL over a CsrGraph snapshot of G (G.freeze()),
+     *  which must not change meanwhile.  EWEIGHTER may be called from
+     *  several threads at once.  Flattening the snapshot's edges and
+     *  each round's passes over the edges and vertices run in parallel,
+     *  so, apart from taking the snapshot (free if G is already a
+     *  CsrGraph), the sequential work is only O(V) in all.  Preferable
+     *  to Kruskal's algorithm for large graphs, since it does not sort
+     *  the edges. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    minimumSpanningForest(UndirectedGraph<VLabel, ELabel> G,
+                          Weighting<? super ELabel> eweighter,
+                          ForkJoinPool pool) {
+        return new SpanningForest<VLabel, ELabel>(G.freeze(), eweighter,
+                                                  pool).boruvka(pool);
+    }
+
+    /** A weighting that weighs Weighted labels by their own weight. */
+    public static final Weighting<Weighted> LABEL_WEIGHTS =
+        new Weighting<Weighted>() {
+            @Override
+            public double weight(Weighted x) {
+                return x.weight();
+            }
+        };
+
     /** Returns a distancer whose dist method always returns 0. */
     public static final Distancer<Object> ZERO_DISTANCER =
         new Distancer<Object>() {
@@ -0,0 +1,153 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** A binary min-heap of distinct items of type ITEM, each with a double
+ *  priority, that remembers where each item sits in the heap.  Knowing
+ *  the position of an item lets contains and decreaseKey run in
+ *  constant and logarithmic time, respectively, rather than the linear
+ *  scans that java.util.PriorityQueue needs for contains and remove.
+ *  @author Ron Desmond
+ */
+class IndexedHeap<Item> {
+
+    /** Returns the number of items in me. */
+    int size() {
+        return _items.size();
+    }
+
+    /** Returns true iff I have no items. */
+    boolean isEmpty() {
+        return _items.isEmpty();
+    }
+
+    /** Returns true iff X is one of my items. */
+    boolean contains(Item x) {
+        return _positions.containsKey(x);
+    }
+
+    /** Returns the current priority of X.  Assumes X is one of my
+     *  items. */
+    double priority(Item x) {
+        return _priorities[_positions.get(x)];
+    }
+
+    /** Adds X with priority PRIORITY.  Assumes X is not already one of
+     *  my items. */
+    void add(Item x, double priority) {
+        int k = _items.size();
+        if (k == _priorities.length) {
+            _priorities = Arrays.copyOf(_priorities, 2 * k + 1);
+        }
+        _items.add(x);
+        _priorities[k] = priority;
+        _positions.put(x, k);
+        siftUp(k);
+    }
+
+    /** Lowers the priority of X to PRIORITY.  Assumes X is one of my
+     *  items and PRIORITY is no larger than its current priority. */
+    void decreaseKey(Item x, double priority) {
+        int k = _positions.get(x);
+        _priorities[k] = priority;
+        siftUp(k);
+    }
+
+    /** Adds X with priority PRIORITY if it is not one of my items, and
+     *  otherwise lowers its priority to PRIORITY. */
+    void addOrDecrease(Item x, double priority) {
+        if (contains(x)) {
+            decreaseKey(x, priority);
+        } else {
+            add(x, priority);
+        }
+    }
+
+    /** Returns the smallest priority among my items.  Assumes I am not
+     *  empty. */
+    double minPriority() {
+        return _priorities[0];
+    }
+
+    /** Removes and returns an item of smallest priority.  Assumes I am
+     *  not empty. */
+    Item poll() {
+        Item result = _items.get(0);
+        int last = _items.size() - 1;
+        move(last, 0);
+        _items.remove(last);
+        _positions.remove(result);
+        if (last > 0) {
+            siftDown(0);
+        }
+        return result;
+    }
+
+    /** Removes all of my items. */
+    void clear() {
+        _items.clear();
+        _positions.clear();
+    }
+
+    /** Moves the item at position K up until its parent is no larger. */
+    private void siftUp(int k) {
+        Item x = _items.get(k);
+        double p = _priorities[k];
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (_priorities[parent] <= p) {
+                break;
+            }
+            move(parent, k);
+            k = parent;
+        }
+        place(x, p, k);
+    }
+
+    /** Moves the item at position K down until its children are no
+     *  smaller. */
+    private void siftDown(int k) {
+        Item x = _items.get(k);
+        double p = _priorities[k];
+        int n = _items.size();
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n
+                && _priorities[child + 1] < _priorities[child]) {
+                child += 1;
+            }
+            if (_priorities[child] >= p) {
+                break;
+            }
+            move(child, k);
+            k = child;
+        }
+        place(x, p, k);
+    }
+
+    /** Copies the item at position FROM, with its priority, to position
+     *  TO. */
+    private void move(int from, int to) {
+        place(_items.get(from), _priorities[from], to);
+    }
+
+    /** Stores X with priority P at position K. */
+    private void place(Item x, double p, int k) {
+        _items.set(k, x);
+        _priorities[k] = p;
+        _positions.put(x, k);
+    }
+
+    /** My items, in heap order. */
+    private final ArrayList<Item> _items = new ArrayList<Item>();
+    /** The priorities of my items, parallel to _items. */
+    private double[] _priorities = new double[16];
+    /** Maps each of my items to its index in _items. */
+    private final HashMap<Item, Integer> _positions =
+        new HashMap<Item, Integer>();
+}
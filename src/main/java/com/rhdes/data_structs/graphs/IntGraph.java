@@ -0,0 +1,335 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** A graph whose vertices and edges are dense int ids rather than
+ *  objects.  Vertices are numbered 0 .. vertexSize()-1 and edges
+ *  0 .. edgeSize()-1.  Each edge carries a double weight and an ELABEL,
+ *  and each vertex a VLABEL, all kept in arrays indexed by id, so adding
+ *  an edge allocates nothing beyond occasional (amortized) array
+ *  growth and weights are read without going through a Weighting.
+ *
+ *  The operations mirror those of Graph.  Instead of iterators, the
+ *  incident edges of a vertex are read by position:
+ *      for (int i = 0; i < G.outDegree(v); i += 1) {
+ *          int e = G.outEdge(v, i), w = G.other(e, v);
+ *          ...
+ *      }
+ *  As in Graph, the outgoing and incoming edges of a vertex in an
+ *  undirected IntGraph are the same.
+ *
+ *  To keep ids dense, removing an edge gives the edge that had the
+ *  highest id the id of the removed edge, and removing a vertex
+ *  likewise renumbers the vertex with the highest id.  Removals also
+ *  reorder the incident edges of the affected vertices.  Both take
+ *  time proportional to the degrees of the vertices involved.
+ *  @author Ron Desmond
+ */
+public class IntGraph<VLabel, ELabel> {
+
+    /** An empty graph, which is directed iff DIRECTED. */
+    public IntGraph(boolean directed) {
+        _directed = directed;
+    }
+
+    /** Returns a new IntGraph with the vertices and edges of G, weighting
+     *  each edge by applying EWEIGHTER to its label.  Vertices are
+     *  numbered in the order G.vertices() delivers them. */
+    public static <VLabel, ELabel> IntGraph<VLabel, ELabel>
+    of(Graph<VLabel, ELabel> G, Weighting<? super ELabel> eweighter) {
+        IntGraph<VLabel, ELabel> result =
+            new IntGraph<VLabel, ELabel>(G.isDirected());
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> ids =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        for (Graph<VLabel, ELabel>.Vertex v: G.vertices()) {
+            ids.put(v, result.addVertex(v.getLabel()));
+        }
+        for (Graph<VLabel, ELabel>.Edge e: G.edges()) {
+            result.addEdge(ids.get(e.getV0()), ids.get(e.getV1()),
+                           eweighter.weight(e.getLabel()), e.getLabel());
+        }
+        return result;
+    }
+
+    /** Returns true iff I am directed. */
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    /** Returns the number of vertices in me. */
+    public int vertexSize() {
+        return _n;
+    }
+
+    /** Returns the number of edges in me. */
+    public int edgeSize() {
+        return _m;
+    }
+
+    /** Returns the label of vertex V. */
+    @SuppressWarnings("unchecked")
+    public VLabel vertexLabel(int v) {
+        return (VLabel) _vLabels[v];
+    }
+
+    /** Returns the label of edge E. */
+    @SuppressWarnings("unchecked")
+    public ELabel edgeLabel(int e) {
+        return (ELabel) _eLabels[e];
+    }
+
+    /** Returns the weight of edge E. */
+    public double weight(int e) {
+        return _weights[e];
+    }
+
+    /** Sets the weight of edge E to W. */
+    public void setWeight(int e, double w) {
+        _weights[e] = w;
+    }
+
+    /** Returns the vertex edge E exits (one of its ends, if I am
+     *  undirected). */
+    public int source(int e) {
+        return _src[e];
+    }
+
+    /** Returns the vertex edge E enters (the end other than source(E), if
+     *  I am undirected). */
+    public int target(int e) {
+        return _dst[e];
+    }
+
+    /** Returns the end of edge E other than V.  Assumes V is an end of
+     *  E. */
+    public int other(int e, int v) {
+        return _src[e] == v ? _dst[e] : _src[e];
+    }
+
+    /** Returns the number of outgoing edges incident to V. */
+    public int outDegree(int v) {
+        return _directed ? _outSize[v] : _outSize[v] + _inSize[v];
+    }
+
+    /** Returns the number of incoming edges incident to V. */
+    public int inDegree(int v) {
+        return _directed ? _inSize[v] : outDegree(v);
+    }
+
+    /** Returns outDegree(V).  This is simply a synonym, intended for use
+     *  in undirected graphs. */
+    public int degree(int v) {
+        return outDegree(v);
+    }
+
+    /** Returns the Ith outgoing edge of V, 0 <= I < outDegree(V). */
+    public int outEdge(int v, int i) {
+        if (i < _outSize[v]) {
+            return _out[v][i];
+        }
+        return _in[v][i - _outSize[v]];
+    }
+
+    /** Returns the Ith incoming edge of V, 0 <= I < inDegree(V). */
+    public int inEdge(int v, int i) {
+        if (_directed) {
+            return _in[v][i];
+        }
+        return outEdge(v, i);
+    }
+
+    /** Returns the Ith successor of V: the far end of outEdge(V, I). */
+    public int successor(int v, int i) {
+        return other(outEdge(v, i), v);
+    }
+
+    /** Returns the Ith predecessor of V: the far end of inEdge(V, I). */
+    public int predecessor(int v, int i) {
+        return other(inEdge(v, i), v);
+    }
+
+    /** Returns true iff there is an edge (U, V) in me. */
+    public boolean contains(int u, int v) {
+        return find(u, v) >= 0;
+    }
+
+    /** Returns an edge (U, V) in me, or -1 if there is none. */
+    public int find(int u, int v) {
+        for (int i = 0; i < _outSize[u]; i += 1) {
+            if (_dst[_out[u][i]] == v) {
+                return _out[u][i];
+            }
+        }
+        if (!_directed) {
+            for (int i = 0; i < _inSize[u]; i += 1) {
+                if (_src[_in[u][i]] == v) {
+                    return _in[u][i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Adds a vertex labeled LABEL with no incident edges, and returns
+     *  its id, which is the old value of vertexSize(). */
+    public int addVertex(VLabel label) {
+        if (_n == _vLabels.length) {
+            int cap = 2 * _n + 8;
+            _vLabels = Arrays.copyOf(_vLabels, cap);
+            _out = Arrays.copyOf(_out, cap);
+            _in = Arrays.copyOf(_in, cap);
+            _outSize = Arrays.copyOf(_outSize, cap);
+            _inSize = Arrays.copyOf(_inSize, cap);
+        }
+        _vLabels[_n] = label;
+        _out[_n] = NO_EDGES;
+        _in[_n] = NO_EDGES;
+        _outSize[_n] = _inSize[_n] = 0;
+        _n += 1;
+        return _n - 1;
+    }
+
+    /** Adds an edge from FROM to TO with weight WEIGHT and label LABEL,
+     *  and returns its id, which is the old value of edgeSize(). */
+    public int addEdge(int from, int to, double weight, ELabel label) {
+        if (_m == _src.length) {
+            int cap = 2 * _m + 8;
+            _src = Arrays.copyOf(_src, cap);
+            _dst = Arrays.copyOf(_dst, cap);
+            _weights = Arrays.copyOf(_weights, cap);
+            _eLabels = Arrays.copyOf(_eLabels, cap);
+            _outSlot = Arrays.copyOf(_outSlot, cap);
+            _inSlot = Arrays.copyOf(_inSlot, cap);
+        }
+        int e = _m;
+        _m += 1;
+        _src[e] = from;
+        _dst[e] = to;
+        _weights[e] = weight;
+        _eLabels[e] = label;
+        _outSlot[e] = append(_out, _outSize, from, e);
+        _inSlot[e] = append(_in, _inSize, to, e);
+        return e;
+    }
+
+    /** Adds an edge from FROM to TO with weight WEIGHT and a null label,
+     *  and returns its id. */
+    public int addEdge(int from, int to, double weight) {
+        return addEdge(from, to, weight, null);
+    }
+
+    /** Removes edge E.  The edge numbered edgeSize()-1, if it is not E,
+     *  is renumbered E. */
+    public void removeEdge(int e) {
+        detach(_out, _outSize, _outSlot, _src[e], _outSlot[e]);
+        detach(_in, _inSize, _inSlot, _dst[e], _inSlot[e]);
+        int last = _m - 1;
+        if (e != last) {
+            _src[e] = _src[last];
+            _dst[e] = _dst[last];
+            _weights[e] = _weights[last];
+            _eLabels[e] = _eLabels[last];
+            _outSlot[e] = _outSlot[last];
+            _inSlot[e] = _inSlot[last];
+            _out[_src[e]][_outSlot[e]] = e;
+            _in[_dst[e]][_inSlot[e]] = e;
+        }
+        _eLabels[last] = null;
+        _m = last;
+    }
+
+    /** Removes all edges from U to V (and from V to U, if I am
+     *  undirected). */
+    public void removeEdges(int u, int v) {
+        for (int e = find(u, v); e >= 0; e = find(u, v)) {
+            removeEdge(e);
+        }
+    }
+
+    /** Removes V and all its incident edges.  The vertex numbered
+     *  vertexSize()-1, if it is not V, is renumbered V. */
+    public void removeVertex(int v) {
+        while (_outSize[v] > 0) {
+            removeEdge(_out[v][_outSize[v] - 1]);
+        }
+        while (_inSize[v] > 0) {
+            removeEdge(_in[v][_inSize[v] - 1]);
+        }
+        int last = _n - 1;
+        if (v != last) {
+            _vLabels[v] = _vLabels[last];
+            _out[v] = _out[last];
+            _in[v] = _in[last];
+            _outSize[v] = _outSize[last];
+            _inSize[v] = _inSize[last];
+            for (int i = 0; i < _outSize[v]; i += 1) {
+                _src[_out[v][i]] = v;
+            }
+            for (int i = 0; i < _inSize[v]; i += 1) {
+                _dst[_in[v][i]] = v;
+            }
+        }
+        _vLabels[last] = null;
+        _out[last] = _in[last] = null;
+        _n = last;
+    }
+
+    /** Appends edge E to the list LISTS[V], whose length is SIZES[V],
+     *  and returns its position there. */
+    private static int append(int[][] lists, int[] sizes, int v, int e) {
+        int k = sizes[v];
+        if (k == lists[v].length) {
+            lists[v] = Arrays.copyOf(lists[v], Math.max(4, 2 * k));
+        }
+        lists[v][k] = e;
+        sizes[v] = k + 1;
+        return k;
+    }
+
+    /** Removes the edge at position K of LISTS[V], whose length is
+     *  SIZES[V], by moving the list's last edge into position K and
+     *  recording the move in SLOTS. */
+    private static void detach(int[][] lists, int[] sizes, int[] slots,
+                               int v, int k) {
+        int last = sizes[v] - 1;
+        int moved = lists[v][last];
+        lists[v][k] = moved;
+        slots[moved] = k;
+        sizes[v] = last;
+    }
+
+    /** The shared adjacency list of vertices that have no edges yet. */
+    private static final int[] NO_EDGES = new int[0];
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Number of vertices. */
+    private int _n;
+    /** Number of edges. */
+    private int _m;
+
+    /** Vertex labels, by vertex id. */
+    private Object[] _vLabels = new Object[0];
+    /** _out[v][0 .. _outSize[v]-1] are the edges that exit v. */
+    private int[][] _out = new int[0][];
+    /** _in[v][0 .. _inSize[v]-1] are the edges that enter v. */
+    private int[][] _in = new int[0][];
+    /** Number of edges exiting each vertex. */
+    private int[] _outSize = new int[0];
+    /** Number of edges entering each vertex. */
+    private int[] _inSize = new int[0];
+
+    /** The vertex each edge exits. */
+    private int[] _src = new int[0];
+    /** The vertex each edge enters. */
+    private int[] _dst = new int[0];
+    /** Edge weights, by edge id. */
+    private double[] _weights = new double[0];
+    /** Edge labels, by edge id. */
+    private Object[] _eLabels = new Object[0];
+    /** Position of each edge in the _out list of its source. */
+    private int[] _outSlot = new int[0];
+    /** Position of each edge in the _in list of its target. */
+    private int[] _inSlot = new int[0];
+}
@@ -0,0 +1,149 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+
+/** A binary min-heap of distinct int items in 0 .. N-1, each with a
+ *  double priority.  It is IndexedHeap for vertex indices: positions are
+ *  kept in an int array rather than a HashMap, so no operation allocates
+ *  once the heap has grown to its working size.
+ *  @author Ron Desmond
+ */
+class IntHeap {
+
+    /** Removes all of my items and prepares for items 0 .. N-1. */
+    void clear(int n) {
+        for (int k = 0; k < _size; k += 1) {
+            _positions[_items[k]] = -1;
+        }
+        _size = 0;
+        if (_positions.length < n) {
+            int old = _positions.length;
+            _positions = Arrays.copyOf(_positions, n);
+            Arrays.fill(_positions, old, n, -1);
+        }
+    }
+
+    /** Returns the number of items in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff I have no items. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns true iff X is one of my items. */
+    boolean contains(int x) {
+        return _positions[x] >= 0;
+    }
+
+    /** Adds X with priority PRIORITY.  Assumes X is not already one of
+     *  my items. */
+    void add(int x, double priority) {
+        if (_size == _items.length) {
+            _items = Arrays.copyOf(_items, 2 * _size + 16);
+            _priorities = Arrays.copyOf(_priorities, 2 * _size + 16);
+        }
+        _size += 1;
+        siftUp(x, priority, _size - 1);
+    }
+
+    /** Lowers the priority of X to PRIORITY.  Assumes X is one of my
+     *  items and PRIORITY is no larger than its current priority. */
+    void decreaseKey(int x, double priority) {
+        siftUp(x, priority, _positions[x]);
+    }
+
+    /** Adds X with priority PRIORITY if it is not one of my items, and
+     *  otherwise lowers its priority to PRIORITY. */
+    void addOrDecrease(int x, double priority) {
+        if (contains(x)) {
+            decreaseKey(x, priority);
+        } else {
+            add(x, priority);
+        }
+    }
+
+    /** Changes the priority of X, which must be one of my items, to
+     *  PRIORITY, which may be larger or smaller than its current
+     *  priority. */
+    void update(int x, double priority) {
+        int k = _positions[x];
+        if (priority <= _priorities[k]) {
+            siftUp(x, priority, k);
+        } else {
+            siftDown(x, priority, k);
+        }
+    }
+
+    /** Returns the smallest priority among my items.  Assumes I am not
+     *  empty. */
+    double minPriority() {
+        return _priorities[0];
+    }
+
+    /** Removes and returns an item of smallest priority.  Assumes I am
+     *  not empty. */
+    int poll() {
+        int result = _items[0];
+        _positions[result] = -1;
+        _size -= 1;
+        if (_size > 0) {
+            siftDown(_items[_size], _priorities[_size], 0);
+        }
+        return result;
+    }
+
+    /** Places X with priority P at position K or above it, moving larger
+     *  ancestors down. */
+    private void siftUp(int x, double p, int k) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (_priorities[parent] <= p) {
+                break;
+            }
+            place(_items[parent], _priorities[parent], k);
+            k = parent;
+        }
+        place(x, p, k);
+    }
+
+    /** Places X with priority P at position K or below it, moving smaller
+     *  descendants up. */
+    private void siftDown(int x, double p, int k) {
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= _size) {
+                break;
+            }
+            if (child + 1 < _size
+                && _priorities[child + 1] < _priorities[child]) {
+                child += 1;
+            }
+            if (_priorities[child] >= p) {
+                break;
+            }
+            place(_items[child], _priorities[child], k);
+            k = child;
+        }
+        place(x, p, k);
+    }
+
+    /** Stores X with priority P at position K. */
+    private void place(int x, double p, int k) {
+        _items[k] = x;
+        _priorities[k] = p;
+        _positions[x] = k;
+    }
+
+    /** Number of items in me. */
+    private int _size;
+    /** My items, in heap order, in _items[0 .. _size-1]. */
+    private int[] _items = new int[0];
+    /** The priorities of my items, parallel to _items. */
+    private double[] _priorities = new double[0];
+    /** The position of each item in _items, or -1 if it is not one of
+     *  my items. */
+    private int[] _positions = new int[0];
+}
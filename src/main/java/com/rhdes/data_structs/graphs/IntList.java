@@ -0,0 +1,69 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+
+/** A growable array of ints.
+ *  @author Ron Desmond
+ */
+class IntList {
+
+    /** An empty list. */
+    IntList() {
+        _items = new int[16];
+    }
+
+    /** Returns my number of items. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff I am empty. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns my Kth item. */
+    int get(int k) {
+        return _items[k];
+    }
+
+    /** Sets my Kth item to X. */
+    void set(int k, int x) {
+        _items[k] = x;
+    }
+
+    /** Adds X at my end. */
+    void add(int x) {
+        if (_size == _items.length) {
+            _items = Arrays.copyOf(_items, 2 * _size);
+        }
+        _items[_size] = x;
+        _size += 1;
+    }
+
+    /** Removes and returns my last item.  Assumes I am not empty. */
+    int pop() {
+        _size -= 1;
+        return _items[_size];
+    }
+
+    /** Removes all my items. */
+    void clear() {
+        _size = 0;
+    }
+
+    /** Copies my items into DEST, starting at position START. */
+    void copyInto(int[] dest, int start) {
+        System.arraycopy(_items, 0, dest, start, _size);
+    }
+
+    /** Returns a new array holding my items. */
+    int[] toArray() {
+        return Arrays.copyOf(_items, _size);
+    }
+
+    /** My items are _items[0 .. _size-1]. */
+    private int[] _items;
+    /** My number of items. */
+    private int _size;
+}
@@ -0,0 +1,54 @@
+package com.rhdes.data_structs.graphs;
+
+/** A first-in, first-out queue of ints held in a circular array that
+ *  doubles when full.  A queue that is cleared and refilled reuses its
+ *  array.
+ *  @author Ron Desmond
+ */
+class IntQueue {
+
+    /** Returns true iff I am empty. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns my number of items. */
+    int size() {
+        return _size;
+    }
+
+    /** Adds X at my tail. */
+    void add(int x) {
+        if (_size == _items.length) {
+            int[] items = new int[2 * _items.length];
+            for (int k = 0; k < _size; k += 1) {
+                items[k] = _items[(_head + k) & (_items.length - 1)];
+            }
+            _items = items;
+            _head = 0;
+        }
+        _items[(_head + _size) & (_items.length - 1)] = x;
+        _size += 1;
+    }
+
+    /** Removes and returns my head.  Assumes I am not empty. */
+    int poll() {
+        int x = _items[_head];
+        _head = (_head + 1) & (_items.length - 1);
+        _size -= 1;
+        return x;
+    }
+
+    /** Removes all my items. */
+    void clear() {
+        _head = _size = 0;
+    }
+
+    /** My items are _items[_head], _items[_head + 1], ... (modulo the
+     *  length, which is always a power of 2). */
+    private int[] _items = new int[16];
+    /** Position of my head. */
+    private int _head;
+    /** My number of items. */
+    private int _size;
+}
@@ -1,6 +1,7 @@
 package com.rhdes.data_structs.graphs;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /** An Iteration<TYPE> is an Iterator<TYPE> that may also be used in a foreach
  *  loop.  That is, it implements the Interable<TYPE> interface by simply
@@ -44,6 +45,66 @@ public abstract class Iteration<Type>
         private Iterator<Type> _iter;
     }
 
+    /** An Iteration over a contiguous range of an array. */
+    private static class ArrayIteration<Type> extends Iteration<Type> {
+        /** An iteration over ITEMS[START .. END-1]. */
+        ArrayIteration(Object[] items, int start, int end) {
+            _items = items;
+            _next = start;
+            _end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next < _end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Type next() {
+            if (_next >= _end) {
+                throw new NoSuchElementException();
+            }
+            return (Type) _items[_next++];
+        }
+
+        /** The array I iterate over. */
+        private final Object[] _items;
+        /** Index of my next item. */
+        private int _next;
+        /** Index just past my last item. */
+        private final int _end;
+    }
+
+    /** An Iteration that delivers the items of one Iteration followed by
+     *  those of another. */
+    private static class ConcatIteration<Type> extends Iteration<Type> {
+        /** The items of FIRST followed by those of SECOND. */
+        ConcatIteration(Iteration<Type> first, Iteration<Type> second) {
+            _current = first;
+            _second = second;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!_current.hasNext() && _current != _second) {
+                _current = _second;
+            }
+            return _current.hasNext();
+        }
+
+        @Override
+        public Type next() {
+            hasNext();
+            return _current.next();
+        }
+
+        /** The iteration currently delivering items. */
+        private Iteration<Type> _current;
+        /** The iteration to continue with once the first is exhausted. */
+        private final Iteration<Type> _second;
+    }
+
     /** Returns an Iteration<TYPE> that delegates to IT. */
     static <Type> Iteration<Type> iteration(Iterator<Type> it) {
         return new SimpleIteration(it);
@@ -54,4 +115,18 @@ public abstract class Iteration<Type>
         return new SimpleIteration(iterable.iterator());
     }
 
+    /** Returns an Iteration<TYPE> over ITEMS[START .. END-1], each of which
+     *  must be a TYPE.  ITEMS is not copied. */
+    static <Type> Iteration<Type> iteration(Object[] items, int start,
+                                            int end) {
+        return new ArrayIteration<Type>(items, start, end);
+    }
+
+    /** Returns an Iteration<TYPE> over the items of FIRST followed by those
+     *  of SECOND, which are not copied. */
+    static <Type> Iteration<Type> concat(Iteration<Type> first,
+                                         Iteration<Type> second) {
+        return new ConcatIteration<Type>(first, second);
+    }
+
 }
@@ -0,0 +1,172 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** A Distancer for graphs that have no geometry, built by ALT (A*,
+ *  landmarks, and the triangle inequality) preprocessing.  A few
+ *  landmark vertices are chosen, and the shortest-path distance from
+ *  each landmark L to every vertex, and from every vertex to L, is
+ *  computed once.  By the triangle inequality, the distance from v to w
+ *  is then at least
+ *      max over L of  d(L, w) - d(L, v)  and  d(v, L) - d(w, L),
+ *  which is a consistent lower bound and so may serve as the heuristic
+ *  of Graphs.shortestPath or Graphs.bidirectionalShortestPath.  It is
+ *  far sharper than Graphs.ZERO_DISTANCER when a landmark lies roughly
+ *  behind v or beyond w, so the searches settle fewer vertices.
+ *
+ *  A Distancer is given vertex labels, so the labels of the graph's
+ *  vertices must be distinct; dist returns 0 (a safe, if useless,
+ *  bound) for labels that belong to no vertex.  The distances describe
+ *  the graph and edge weights as they were when the Landmarks were
+ *  built.
+ *  @author Ron Desmond
+ */
+public class Landmarks<VLabel> implements Distancer<VLabel> {
+
+    /** Returns Landmarks for G with edge weights given by EWEIGHTER,
+     *  which must be non-negative, using (at most) K landmarks.  The
+     *  landmarks are chosen by farthest selection: each is a vertex
+     *  farthest from the landmarks chosen before it (the first being
+     *  farthest from an arbitrary vertex), so that they sit on the
+     *  periphery of the graph, where they give the best bounds.
+     *  Preprocessing takes about 2K runs of Dijkstra's algorithm, and
+     *  the result holds 2K doubles per vertex (K if G is undirected).
+     *  Throws IllegalArgumentException if two vertices of G have equal
+     *  labels, since no bound that dist could give for such a label
+     *  would be both safe and consistent. */
+    public static <VLabel, ELabel> Landmarks<VLabel>
+    of(Graph<VLabel, ELabel> G, Weighting<? super ELabel> eweighter,
+       int k) {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int n = csr.vertexSize();
+        k = Math.min(k, n);
+        HashMap<VLabel, Integer> indices = new HashMap<VLabel, Integer>();
+        for (int v = 0; v < n; v += 1) {
+            if (indices.put(csr.vertex(v).getLabel(), v) != null) {
+                throw new IllegalArgumentException("duplicate vertex label");
+            }
+        }
+        double[] outWeights = csr.outWeights(eweighter);
+        double[] inWeights =
+            G.isDirected() ? csr.inWeights(eweighter) : outWeights;
+
+        double[] from = new double[n * k];
+        double[] to = G.isDirected() ? new double[n * k] : from;
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        double[] dist = new double[n];
+        IntHeap heap = new IntHeap();
+        int landmark =
+            n == 0 ? 0 : farthest(dijkstra(csr, true, outWeights, 0, dist,
+                                           heap));
+        for (int i = 0; i < k; i += 1) {
+            dijkstra(csr, true, outWeights, landmark, dist, heap);
+            for (int v = 0; v < n; v += 1) {
+                from[v * k + i] = dist[v];
+                nearest[v] = Math.min(nearest[v], dist[v]);
+            }
+            if (G.isDirected()) {
+                dijkstra(csr, false, inWeights, landmark, dist, heap);
+                for (int v = 0; v < n; v += 1) {
+                    to[v * k + i] = dist[v];
+                }
+            }
+            landmark = farthest(nearest);
+        }
+
+        return new Landmarks<VLabel>(k, from, to, indices);
+    }
+
+    /** A Distancer with K landmarks, where FROM[v * K + i] is the
+     *  distance from landmark i to vertex v, TO[v * K + i] is the distance
+     *  from v to landmark i, and INDICES maps the label of each vertex v
+     *  to v. */
+    private Landmarks(int k, double[] from, double[] to,
+                      HashMap<VLabel, Integer> indices) {
+        _k = k;
+        _from = from;
+        _to = to;
+        _indices = indices;
+    }
+
+    /** Returns the number of landmarks I use. */
+    public int size() {
+        return _k;
+    }
+
+    /** Returns a lower bound on the length of a shortest path from the
+     *  vertex labeled V0 to the vertex labeled V1. */
+    @Override
+    public double dist(VLabel v0, VLabel v1) {
+        Integer i0 = _indices.get(v0), i1 = _indices.get(v1);
+        if (i0 == null || i1 == null) {
+            return 0.0;
+        }
+        int a = i0 * _k, b = i1 * _k;
+        double result = 0.0;
+        for (int i = 0; i < _k; i += 1) {
+            double forward = _from[b + i] - _from[a + i];
+            double backward = _to[a + i] - _to[b + i];
+            if (forward > result && forward < Double.POSITIVE_INFINITY) {
+                result = forward;
+            }
+            if (backward > result && backward < Double.POSITIVE_INFINITY) {
+                result = backward;
+            }
+        }
+        return result;
+    }
+
+    /** Sets DIST[v] to the length of a shortest path from SOURCE to v in
+     *  G (infinity if there is none), following outgoing edges if
+     *  FORWARD and otherwise following incoming edges backward (giving
+     *  distances to SOURCE).  WEIGHTS gives the weights of the outgoing
+     *  or incoming edges, by slot.  Uses HEAP as scratch space.  Returns
+     *  DIST. */
+    static double[] dijkstra(CsrGraph<?, ?> G, boolean forward,
+                             double[] weights, int source, double[] dist,
+                             IntHeap heap) {
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        heap.clear(dist.length);
+        dist[source] = 0.0;
+        heap.add(source, 0.0);
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            double d = dist[v];
+            int end = forward ? G.outStart(v + 1) : G.inStart(v + 1);
+            for (int s = forward ? G.outStart(v) : G.inStart(v); s < end;
+                 s += 1) {
+                int w = forward ? G.outTarget(s) : G.inSource(s);
+                if (d + weights[s] < dist[w]) {
+                    dist[w] = d + weights[s];
+                    heap.addOrDecrease(w, dist[w]);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Returns a vertex v whose NEAREST[v] is largest.  Vertices that no
+     *  landmark reaches (with infinite NEAREST[v]) come first, so that
+     *  other components get landmarks too. */
+    private static int farthest(double[] nearest) {
+        int result = 0;
+        for (int v = 1; v < nearest.length; v += 1) {
+            if (nearest[v] > nearest[result]) {
+                result = v;
+            }
+        }
+        return result;
+    }
+
+    /** Number of landmarks. */
+    private final int _k;
+    /** Distances from each landmark to each vertex, vertex-major. */
+    private final double[] _from;
+    /** Distances from each vertex to each landmark, vertex-major (the same
+     *  array as _from for undirected graphs). */
+    private final double[] _to;
+    /** Maps each vertex label to its vertex's index. */
+    private final HashMap<VLabel, Integer> _indices;
+}
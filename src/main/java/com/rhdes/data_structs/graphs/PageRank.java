@@ -0,0 +1,166 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/** PageRank and personalized PageRank.  A vertex's rank is the
+ *  probability of finding a random surfer at it, where at each step the
+ *  surfer follows a random outgoing edge with probability DAMPING and
+ *  otherwise jumps to a vertex chosen by a preference distribution
+ *  (uniform for plain PageRank).  From a vertex with no outgoing edges
+ *  (a dangling vertex), the surfer always jumps.  Parallel edges count
+ *  once each.  Ranks are indexed by G.index(v) and sum to 1.
+ *
+ *  The ranks are found by power iteration over a CsrGraph snapshot of
+ *  the graph (G.freeze()), which must not change meanwhile.  Each
+ *  iteration pulls, for each vertex in parallel, the shares of rank sent
+ *  along its incoming edges, so each vertex's new rank is written by one
+ *  thread only and no synchronization is needed.  Iteration stops when
+ *  the ranks change by less than TOLERANCE in total (L1 norm), or after
+ *  MAXITERATIONS iterations.
+ *  @author Ron Desmond
+ */
+public final class PageRank {
+
+    /** Returns the PageRank of each vertex of G with damping factor
+     *  DAMPING, iterating on POOL as described above. */
+    public static <VLabel, ELabel> double[]
+    rank(Graph<VLabel, ELabel> G, double damping, double tolerance,
+         int maxIterations, ForkJoinPool pool) {
+        int n = G.vertexSize();
+        double[] preference = new double[n];
+        Arrays.fill(preference, 1.0 / n);
+        return iterate(G.freeze(), preference, damping, tolerance,
+                       maxIterations, pool);
+    }
+
+    /** Returns the personalized PageRank of each vertex of G with respect
+     *  to SEEDS, to which the surfer jumps with equal probability,
+     *  otherwise as for rank. */
+    public static <VLabel, ELabel> double[]
+    personalized(Graph<VLabel, ELabel> G,
+                 List<Graph<VLabel, ELabel>.Vertex> seeds, double damping,
+                 double tolerance, int maxIterations, ForkJoinPool pool) {
+        double[] preference = new double[G.vertexSize()];
+        for (Graph<VLabel, ELabel>.Vertex v : seeds) {
+            int i = G.index(v);
+            if (i < 0) {
+                throw new IllegalArgumentException("vertex not in graph");
+            }
+            preference[i] += 1.0;
+        }
+        return personalized(G, preference, damping, tolerance, maxIterations,
+                            pool);
+    }
+
+    /** Returns the personalized PageRank of each vertex of G where the
+     *  surfer jumps to each vertex v with probability proportional to
+     *  PREFERENCE[G.index(v)], otherwise as for rank.  PREFERENCE must
+     *  be non-negative with a positive sum.  It is not modified. */
+    public static <VLabel, ELabel> double[]
+    personalized(Graph<VLabel, ELabel> G, double[] preference,
+                 double damping, double tolerance, int maxIterations,
+                 ForkJoinPool pool) {
+        if (preference.length != G.vertexSize()) {
+            throw new IllegalArgumentException("wrong preference length");
+        }
+        double total = 0.0;
+        for (double p : preference) {
+            if (!(p >= 0.0)) {
+                throw new IllegalArgumentException("negative preference");
+            }
+            total += p;
+        }
+        if (!(total > 0.0)) {
+            throw new IllegalArgumentException("no preferred vertex");
+        }
+        double[] normalized = new double[preference.length];
+        for (int v = 0; v < normalized.length; v += 1) {
+            normalized[v] = preference[v] / total;
+        }
+        return iterate(G.freeze(), normalized, damping, tolerance,
+                       maxIterations, pool);
+    }
+
+    /** Returns the ranks in G with preference distribution PREFERENCE
+     *  (summing to 1), damping factor DAMPING, and the given stopping
+     *  conditions, iterating on POOL. */
+    private static double[] iterate(final CsrGraph<?, ?> G,
+                                    final double[] preference,
+                                    final double damping, double tolerance,
+                                    int maxIterations, ForkJoinPool pool) {
+        if (!(damping >= 0.0 && damping < 1.0)) {
+            throw new IllegalArgumentException("damping must be in [0, 1)");
+        }
+        final int n = G.vertexSize();
+        final double[] share = new double[n];
+        double[] rank = preference.clone();
+        double[] next = new double[n];
+        int nchunks = Parallel.chunks(n, GRAIN);
+        final double[] dangling = new double[nchunks],
+            change = new double[nchunks];
+        for (int iter = 0; iter < maxIterations; iter += 1) {
+            final double[] from = rank, to = next;
+            Parallel.forRange(pool, nchunks, 1, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int c = lo; c < hi; c += 1) {
+                            double sum = 0.0;
+                            int end = Math.min(n, (c + 1) * GRAIN);
+                            for (int v = c * GRAIN; v < end; v += 1) {
+                                int degree = G.outStart(v + 1) - G.outStart(v);
+                                if (degree == 0) {
+                                    share[v] = 0.0;
+                                    sum += from[v];
+                                } else {
+                                    share[v] = from[v] / degree;
+                                }
+                            }
+                            dangling[c] = sum;
+                        }
+                    }
+                });
+            double danglingRank = 0.0;
+            for (double d : dangling) {
+                danglingRank += d;
+            }
+            final double jump = 1.0 - damping + damping * danglingRank;
+            Parallel.forRange(pool, nchunks, 1, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int c = lo; c < hi; c += 1) {
+                            double sum = 0.0;
+                            int end = Math.min(n, (c + 1) * GRAIN);
+                            for (int v = c * GRAIN; v < end; v += 1) {
+                                double pulled = 0.0;
+                                for (int k = G.inStart(v);
+                                     k < G.inStart(v + 1); k += 1) {
+                                    pulled += share[G.inSource(k)];
+                                }
+                                to[v] = jump * preference[v]
+                                    + damping * pulled;
+                                sum += Math.abs(to[v] - from[v]);
+                            }
+                            change[c] = sum;
+                        }
+                    }
+                });
+            rank = to;
+            next = from;
+            double totalChange = 0.0;
+            for (double d : change) {
+                totalChange += d;
+            }
+            if (totalChange < tolerance) {
+                break;
+            }
+        }
+        return rank;
+    }
+
+    /** Number of vertices each parallel task handles. */
+    private static final int GRAIN = 1 << 12;
+
+    /** Not instantiable. */
+    private PageRank() {
+    }
+}
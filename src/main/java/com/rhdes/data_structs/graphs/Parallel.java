@@ -0,0 +1,77 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/** Helpers for running loops over ranges of ints on a ForkJoinPool.
+ *  @author Ron Desmond
+ */
+final class Parallel {
+
+    /** The body of a loop over a range of ints. */
+    interface Body {
+        /** Performs the iterations LO .. HI-1. */
+        void run(int lo, int hi);
+    }
+
+    /** Performs BODY on 0 .. N-1, using POOL to run subranges of at most
+     *  GRAIN iterations in parallel.  Returns when all iterations are
+     *  done.  May be called from tasks already running on POOL. */
+    static void forRange(ForkJoinPool pool, int n, int grain, Body body) {
+        if (n <= grain) {
+            body.run(0, n);
+        } else {
+            RangeAction action =
+                new RangeAction(body, 0, n, Math.max(1, grain));
+            if (ForkJoinTask.getPool() == pool) {
+                action.invoke();
+            } else {
+                pool.invoke(action);
+            }
+        }
+    }
+
+    /** Returns the number of chunks of at most GRAIN items that N items
+     *  divide into. */
+    static int chunks(int n, int grain) {
+        return (n + grain - 1) / grain;
+    }
+
+    /** An action that performs a Body on a range by splitting it in
+     *  half until the pieces are small enough to run directly. */
+    private static class RangeAction extends RecursiveAction {
+        /** Performs BODY on LO .. HI-1 in pieces of at most GRAIN. */
+        RangeAction(Body body, int lo, int hi, int grain) {
+            _body = body;
+            _lo = lo;
+            _hi = hi;
+            _grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo <= _grain) {
+                _body.run(_lo, _hi);
+            } else {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(new RangeAction(_body, _lo, mid, _grain),
+                          new RangeAction(_body, mid, _hi, _grain));
+            }
+        }
+
+        /** The loop body. */
+        private final Body _body;
+        /** The range of iterations I perform is _lo .. _hi-1. */
+        private final int _lo, _hi;
+        /** The largest range I run without splitting. */
+        private final int _grain;
+
+        /** Serialization version (RecursiveAction is Serializable). */
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** Not instantiable. */
+    private Parallel() {
+    }
+}
@@ -0,0 +1,105 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/** The shortest paths from one source vertex to every vertex of a
+ *  graph, as dense arrays indexed by G.index(v): the distance from the
+ *  source to each vertex, and the parent of each vertex (the vertex
+ *  before it on a shortest path).  Following parents from any reachable
+ *  vertex leads back to the source along a shortest path.
+ *  @author Ron Desmond
+ */
+public class ShortestPathTree<VLabel, ELabel> {
+
+    /** The tree of shortest paths from the vertex with index SOURCE in G,
+     *  where DIST holds the distances and PARENTSLOTS holds, for each
+     *  vertex, the incoming-edge slot in G of its parent edge, or -1 for
+     *  the source and unreachable vertices. */
+    ShortestPathTree(CsrGraph<VLabel, ELabel> G, int source, double[] dist,
+                     int[] parentSlots) {
+        _graph = G;
+        _source = source;
+        _dist = dist;
+        _parentSlots = parentSlots;
+    }
+
+    /** Returns the source of my paths. */
+    public Graph<VLabel, ELabel>.Vertex source() {
+        return _graph.vertex(_source);
+    }
+
+    /** Returns the length of a shortest path from my source to each
+     *  vertex, indexed by G.index, with Double.POSITIVE_INFINITY for
+     *  vertices that are unreachable.  The array is mine, and should not
+     *  be modified. */
+    public double[] distances() {
+        return _dist;
+    }
+
+    /** Returns the parent of each vertex, as the index of the vertex
+     *  before it on a shortest path from my source, indexed by G.index.
+     *  The parent of the source and of unreachable vertices is -1. */
+    public int[] parents() {
+        if (_parents == null) {
+            int[] parents = new int[_dist.length];
+            for (int v = 0; v < parents.length; v += 1) {
+                parents[v] =
+                    _parentSlots[v] < 0 ? -1 : _graph.inSource(_parentSlots[v]);
+            }
+            _parents = parents;
+        }
+        return _parents;
+    }
+
+    /** Returns the length of a shortest path from my source to V, or
+     *  Double.POSITIVE_INFINITY if there is none. */
+    public double distance(Graph<VLabel, ELabel>.Vertex v) {
+        return _dist[index(v)];
+    }
+
+    /** Returns the last edge on my shortest path to V, or null if V is my
+     *  source or is unreachable. */
+    public Graph<VLabel, ELabel>.Edge parentEdge(
+        Graph<VLabel, ELabel>.Vertex v) {
+        int slot = _parentSlots[index(v)];
+        return slot < 0 ? null : _graph.inEdge(slot);
+    }
+
+    /** Returns a shortest path from my source to V, or null if V is
+     *  unreachable. */
+    public List<Graph<VLabel, ELabel>.Edge>
+    pathTo(Graph<VLabel, ELabel>.Vertex v) {
+        int i = index(v);
+        if (_dist[i] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        LinkedList<Graph<VLabel, ELabel>.Edge> result =
+            new LinkedList<Graph<VLabel, ELabel>.Edge>();
+        while (_parentSlots[i] >= 0) {
+            result.addFirst(_graph.inEdge(_parentSlots[i]));
+            i = _graph.inSource(_parentSlots[i]);
+        }
+        return result;
+    }
+
+    /** Returns the index of V, which must be a vertex of my graph. */
+    private int index(Graph<VLabel, ELabel>.Vertex v) {
+        int i = _graph.index(v);
+        if (i < 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        return i;
+    }
+
+    /** The graph my paths run through. */
+    private final CsrGraph<VLabel, ELabel> _graph;
+    /** The index of my source. */
+    private final int _source;
+    /** Distances from my source, by vertex index. */
+    private final double[] _dist;
+    /** The incoming slot of each vertex's parent edge, or -1. */
+    private final int[] _parentSlots;
+    /** Parents by vertex index, or null if not yet needed. */
+    private int[] _parents;
+}
@@ -0,0 +1,495 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Shortest-path computations that cover many vertices at once, rather
+ *  than the single pairs of Graphs.shortestPath.  They run over a
+ *  CsrGraph snapshot of the graph (G.freeze(), which is free if G is
+ *  already frozen), the graph must not change while they run, and edge
+ *  weights must be non-negative.  Results are indexed by G.index(v).
+ *  @author Ron Desmond
+ */
+public final class ShortestPaths {
+
+    /** Returns the shortest paths from SOURCE to every vertex of G, with
+     *  edge weights given by EWEIGHTER, computed by delta-stepping on
+     *  POOL with a bucket width chosen from the edge weights and
+     *  degrees of G. */
+    public static <VLabel, ELabel> ShortestPathTree<VLabel, ELabel>
+    fromSource(Graph<VLabel, ELabel> G, Graph<VLabel, ELabel>.Vertex source,
+               Weighting<? super ELabel> eweighter, ForkJoinPool pool) {
+        return fromSource(G, source, eweighter, 0.0, pool);
+    }
+
+    /** Returns the shortest paths from SOURCE to every vertex of G, with
+     *  edge weights given by EWEIGHTER, computed by delta-stepping on
+     *  POOL with buckets of width DELTA (or a width chosen from G if
+     *  DELTA is not positive).
+     *
+     *  Delta-stepping is Dijkstra's algorithm with the priority queue
+     *  replaced by buckets of tentative distances [i*DELTA, (i+1)*DELTA).
+     *  All vertices in the lowest nonempty bucket are expanded at once,
+     *  in parallel, relaxing their light edges (of weight at most DELTA),
+     *  which may refill the same bucket, until it stays empty; then the
+     *  heavy edges of everything it held are relaxed once.  Distances
+     *  are lowered by compare-and-set, so concurrent relaxations of the
+     *  same vertex are safe.  A small DELTA does little redundant work
+     *  but has little parallelism; a large one, the reverse.  (DELTA is
+     *  raised if need be so that the largest weight spans at most 2^16
+     *  buckets.)  Parents
+     *  are reconstructed from the final distances. */
+    public static <VLabel, ELabel> ShortestPathTree<VLabel, ELabel>
+    fromSource(Graph<VLabel, ELabel> G, Graph<VLabel, ELabel>.Vertex source,
+               Weighting<? super ELabel> eweighter, double delta,
+               ForkJoinPool pool) {
+        CsrGraph<VLabel, ELabel> csr = G.freeze();
+        int s = csr.index(source);
+        if (s < 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        double[] weights = csr.outWeights(eweighter);
+        if (delta <= 0.0) {
+            delta = defaultDelta(csr, weights);
+        }
+        delta = Math.max(delta, max(weights) / MAX_BUCKETS);
+        double[] dist =
+            new DeltaStepping(csr, weights, delta, pool).run(s);
+        double[] inWeights =
+            G.isDirected() ? csr.inWeights(eweighter) : weights;
+        return new ShortestPathTree<VLabel, ELabel>(
+            csr, s, dist, parentSlots(csr, inWeights, s, dist, pool));
+    }
+
+    /** Returns a bucket width for delta-stepping over G with the given
+     *  WEIGHTS: the largest weight divided by the average degree, which
+     *  keeps the number of light edges per vertex near a constant. */
+    private static double defaultDelta(CsrGraph<?, ?> G, double[] weights) {
+        int n = G.vertexSize();
+        double degree = n == 0 ? 1.0 : (double) weights.length / n;
+        double delta = max(weights) / Math.max(1.0, degree);
+        return delta > 0.0 ? delta : 1.0;
+    }
+
+    /** Returns the largest of WEIGHTS, or 0 if there are none. */
+    private static double max(double[] weights) {
+        double result = 0.0;
+        for (double w : weights) {
+            result = Math.max(result, w);
+        }
+        return result;
+    }
+
+    /** Returns, for each vertex v of G with final distance DIST[v] from
+     *  the vertex with index SOURCE, the incoming slot of an edge (u, v)
+     *  with DIST[u] + weight = DIST[v], where INWEIGHTS gives the weights
+     *  of incoming slots, or -1 for SOURCE and unreachable vertices.
+     *  Edges from strictly nearer vertices are found in parallel on
+     *  POOL; vertices reached only through zero-weight edges are then
+     *  attached by a search from those already placed, so that the
+     *  parents always form a tree. */
+    private static int[] parentSlots(final CsrGraph<?, ?> G,
+                                     final double[] inWeights,
+                                     final int source, final double[] dist,
+                                     ForkJoinPool pool) {
+        final int n = dist.length;
+        final int[] result = new int[n];
+        Parallel.forRange(pool, n, PARENT_GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        result[v] = -1;
+                        if (v == source
+                            || dist[v] == Double.POSITIVE_INFINITY) {
+                            continue;
+                        }
+                        for (int k = G.inStart(v); k < G.inStart(v + 1);
+                             k += 1) {
+                            int u = G.inSource(k);
+                            if (dist[u] < dist[v]
+                                && dist[u] + inWeights[k] == dist[v]) {
+                                result[v] = k;
+                                break;
+                            }
+                        }
+                    }
+                }
+            });
+        IntQueue placed = null;
+        for (int v = 0; v < n; v += 1) {
+            if (result[v] < 0 && v != source
+                && dist[v] < Double.POSITIVE_INFINITY) {
+                placed = new IntQueue();
+                break;
+            }
+        }
+        if (placed == null) {
+            return result;
+        }
+        for (int v = 0; v < n; v += 1) {
+            if (result[v] >= 0 || v == source) {
+                placed.add(v);
+            }
+        }
+        while (!placed.isEmpty()) {
+            int u = placed.poll();
+            for (int j = G.outStart(u); j < G.outStart(u + 1); j += 1) {
+                int w = G.outTarget(j);
+                if (result[w] >= 0 || w == source || dist[w] != dist[u]) {
+                    continue;
+                }
+                for (int k = G.inStart(w); k < G.inStart(w + 1); k += 1) {
+                    if (G.inSource(k) == u && inWeights[k] == 0.0) {
+                        result[w] = k;
+                        placed.add(w);
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Returns the matrix of shortest-path distances from each of SOURCES
+     *  to each of TARGETS in G, with edge weights given by EWEIGHTER,
+     *  packed by rows: the distance from SOURCES.get(i) to
+     *  TARGETS.get(j) is at [i * TARGETS.size() + j], and is
+     *  Double.POSITIVE_INFINITY if there is no path.
+     *
+     *  Each source gets one Dijkstra search, which stops as soon as all
+     *  the targets are settled, rather than one search per pair.  The
+     *  searches run on POOL with one worker per thread, each claiming
+     *  sources from a shared counter until none are left.  A worker
+     *  reuses its own distance array and heap from one search to the
+     *  next, resetting them with a round stamp instead of clearing every
+     *  vertex, and drops them when it is done. */
+    public static <VLabel, ELabel> double[]
+    distanceMatrix(Graph<VLabel, ELabel> G,
+                   final List<Graph<VLabel, ELabel>.Vertex> sources,
+                   final List<Graph<VLabel, ELabel>.Vertex> targets,
+                   Weighting<? super ELabel> eweighter, ForkJoinPool pool) {
+        final CsrGraph<VLabel, ELabel> csr = G.freeze();
+        final int n = csr.vertexSize();
+        final int[] sourceIndices = indices(csr, sources);
+        final int[] targetIndices = indices(csr, targets);
+        final boolean[] isTarget = new boolean[n];
+        int distinct = 0;
+        for (int t : targetIndices) {
+            if (!isTarget[t]) {
+                isTarget[t] = true;
+                distinct += 1;
+            }
+        }
+        final int targetCount = distinct;
+        final double[] weights = csr.outWeights(eweighter);
+        final int width = targetIndices.length;
+        final double[] result = new double[sourceIndices.length * width];
+        final AtomicInteger next = new AtomicInteger();
+        int nworkers =
+            Math.max(1, Math.min(sourceIndices.length,
+                                 pool.getParallelism()));
+        Parallel.forRange(pool, nworkers, 1, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int t = lo; t < hi; t += 1) {
+                        int i = next.getAndIncrement();
+                        if (i >= sourceIndices.length) {
+                            continue;
+                        }
+                        OneToMany search = new OneToMany(n);
+                        for (; i < sourceIndices.length;
+                             i = next.getAndIncrement()) {
+                            search.run(csr, weights, sourceIndices[i],
+                                       isTarget, targetCount);
+                            for (int j = 0; j < width; j += 1) {
+                                result[i * width + j] =
+                                    search.distance(targetIndices[j]);
+                            }
+                        }
+                    }
+                }
+            });
+        return result;
+    }
+
+    /** Returns the indices in G of VERTS. */
+    private static <VLabel, ELabel> int[]
+    indices(CsrGraph<VLabel, ELabel> G,
+            List<Graph<VLabel, ELabel>.Vertex> verts) {
+        int[] result = new int[verts.size()];
+        int k = 0;
+        for (Graph<VLabel, ELabel>.Vertex v : verts) {
+            result[k] = G.index(v);
+            if (result[k] < 0) {
+                throw new IllegalArgumentException("vertex not in graph");
+            }
+            k += 1;
+        }
+        return result;
+    }
+
+    /** One worker's state for Dijkstra searches from single sources,
+     *  reused across searches. */
+    private static class OneToMany {
+
+        /** State for searches over graphs with N vertices. */
+        OneToMany(int n) {
+            _dist = new double[n];
+            _stamps = new int[n];
+        }
+
+        /** Searches G, whose outgoing slots have weights WEIGHTS, from the
+         *  vertex with index SOURCE until the COUNT vertices v with
+         *  ISTARGET[v] are settled or no more vertices are reachable. */
+        void run(CsrGraph<?, ?> G, double[] weights, int source,
+                 boolean[] isTarget, int count) {
+            _round += 1;
+            if (_round == 0) {
+                Arrays.fill(_stamps, 0);
+                _round = 1;
+            }
+            _heap.clear(_dist.length);
+            _dist[source] = 0.0;
+            _stamps[source] = _round;
+            _heap.add(source, 0.0);
+            int settled = 0;
+            while (settled < count && !_heap.isEmpty()) {
+                int v = _heap.poll();
+                if (isTarget[v]) {
+                    settled += 1;
+                }
+                double d = _dist[v];
+                for (int k = G.outStart(v); k < G.outStart(v + 1); k += 1) {
+                    int w = G.outTarget(k);
+                    double nd = d + weights[k];
+                    if (nd < distance(w)) {
+                        _dist[w] = nd;
+                        _stamps[w] = _round;
+                        _heap.addOrDecrease(w, nd);
+                    }
+                }
+            }
+        }
+
+        /** Returns the distance the last search found to the vertex with
+         *  index V, or Double.POSITIVE_INFINITY if it did not reach V. */
+        double distance(int v) {
+            return _stamps[v] == _round ? _dist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        /** Distances from the current source, valid where _stamps holds
+         *  the current round. */
+        private final double[] _dist;
+        /** The search that last labeled each vertex. */
+        private final int[] _stamps;
+        /** The current search. */
+        private int _round;
+        /** Labeled vertices not yet settled. */
+        private final IntHeap _heap = new IntHeap();
+    }
+
+    /** The state of one delta-stepping computation. */
+    private static class DeltaStepping {
+
+        /** A computation over G, whose outgoing slots have weights WEIGHTS,
+         *  using buckets of width DELTA and running on POOL. */
+        DeltaStepping(CsrGraph<?, ?> G, double[] weights, double delta,
+                      ForkJoinPool pool) {
+            _graph = G;
+            _weights = weights;
+            _delta = delta;
+            _pool = pool;
+            int n = G.vertexSize();
+            _dist = new AtomicLongArray(n);
+            int nbuckets = (int) (max(weights) / delta) + 2;
+            _buckets = new IntList[nbuckets];
+            for (int b = 0; b < nbuckets; b += 1) {
+                _buckets[b] = new IntList();
+            }
+            _stamps = new int[n];
+            _found = new IntList[0];
+        }
+
+        /** Returns the distances from the vertex with index SOURCE. */
+        double[] run(int source) {
+            final int n = _graph.vertexSize();
+            Parallel.forRange(_pool, n, COPY_GRAIN, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int v = lo; v < hi; v += 1) {
+                            _dist.set(v, INFINITY_BITS);
+                        }
+                    }
+                });
+            _dist.set(source, Double.doubleToLongBits(0.0));
+            _buckets[0].add(source);
+            IntList frontier = new IntList(), settled = new IntList();
+            long current = 0;
+            while (true) {
+                int empty = 0;
+                while (empty < _buckets.length && bucket(current).isEmpty()) {
+                    current += 1;
+                    empty += 1;
+                }
+                if (empty == _buckets.length) {
+                    break;
+                }
+                settled.clear();
+                _round += 1;
+                takeBucket(current, frontier);
+                while (!frontier.isEmpty()) {
+                    for (int k = 0; k < frontier.size(); k += 1) {
+                        settled.add(frontier.get(k));
+                    }
+                    relax(frontier, true);
+                    _round += 1;
+                    takeBucket(current, frontier);
+                }
+                relax(settled, false);
+            }
+            final double[] result = new double[n];
+            Parallel.forRange(_pool, n, COPY_GRAIN, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int v = lo; v < hi; v += 1) {
+                            result[v] = distance(v);
+                        }
+                    }
+                });
+            return result;
+        }
+
+        /** Returns the list of vertices whose tentative distances fall in
+         *  bucket number B. */
+        private IntList bucket(long b) {
+            return _buckets[(int) (b % _buckets.length)];
+        }
+
+        /** Returns the number of the bucket that distance D falls in. */
+        private long bucketOf(double d) {
+            return (long) (d / _delta);
+        }
+
+        /** Returns the current tentative distance of vertex V. */
+        private double distance(int v) {
+            return Double.longBitsToDouble(_dist.get(v));
+        }
+
+        /** Empties bucket number B into FRONTIER, dropping vertices that
+         *  have since moved to a lower bucket and duplicates. */
+        private void takeBucket(long b, IntList frontier) {
+            frontier.clear();
+            IntList items = bucket(b);
+            for (int k = 0; k < items.size(); k += 1) {
+                int v = items.get(k);
+                if (_stamps[v] != _round && bucketOf(distance(v)) == b) {
+                    _stamps[v] = _round;
+                    frontier.add(v);
+                }
+            }
+            items.clear();
+        }
+
+        /** Relaxes, in parallel, the light edges (of weight at most
+         *  _delta) leaving the vertices in VERTS if LIGHT, and otherwise
+         *  their heavy edges, then files every vertex whose distance fell
+         *  into its new bucket. */
+        private void relax(IntList verts, final boolean light) {
+            final int size = verts.size();
+            int nchunks = Parallel.chunks(size, RELAX_GRAIN);
+            if (_found.length < nchunks) {
+                IntList[] more = new IntList[Math.max(nchunks,
+                                                      2 * _found.length)];
+                System.arraycopy(_found, 0, more, 0, _found.length);
+                for (int c = _found.length; c < more.length; c += 1) {
+                    more[c] = new IntList();
+                }
+                _found = more;
+            }
+            final IntList[] buffers = _found;
+            final int[] items = verts.toArray();
+            Parallel.forRange(_pool, nchunks, 1, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int c = lo; c < hi; c += 1) {
+                            IntList out = buffers[c];
+                            out.clear();
+                            int end = Math.min(size, (c + 1) * RELAX_GRAIN);
+                            for (int k = c * RELAX_GRAIN; k < end; k += 1) {
+                                relaxEdges(items[k], light, out);
+                            }
+                        }
+                    }
+                });
+            for (int c = 0; c < nchunks; c += 1) {
+                IntList out = buffers[c];
+                for (int k = 0; k < out.size(); k += 1) {
+                    int w = out.get(k);
+                    bucket(bucketOf(distance(w))).add(w);
+                }
+            }
+        }
+
+        /** Relaxes the light edges leaving vertex U if LIGHT, and otherwise
+         *  its heavy edges, adding to OUT each vertex whose distance this
+         *  lowers. */
+        private void relaxEdges(int u, boolean light, IntList out) {
+            double d = distance(u);
+            CsrGraph<?, ?> G = _graph;
+            for (int k = G.outStart(u); k < G.outStart(u + 1); k += 1) {
+                double w = _weights[k];
+                if ((w <= _delta) != light) {
+                    continue;
+                }
+                int v = G.outTarget(k);
+                double nd = d + w;
+                long old = _dist.get(v);
+                while (nd < Double.longBitsToDouble(old)) {
+                    if (_dist.compareAndSet(v, old,
+                                            Double.doubleToLongBits(nd))) {
+                        out.add(v);
+                        break;
+                    }
+                    old = _dist.get(v);
+                }
+            }
+        }
+
+        /** The graph searched. */
+        private final CsrGraph<?, ?> _graph;
+        /** The weight of each outgoing slot. */
+        private final double[] _weights;
+        /** The bucket width. */
+        private final double _delta;
+        /** The pool that runs relaxations. */
+        private final ForkJoinPool _pool;
+        /** Tentative distances, as the bits of doubles. */
+        private final AtomicLongArray _dist;
+        /** Buckets, used cyclically: bucket b is _buckets[b % length].
+         *  Every tentative distance lies within length - 1 buckets of the
+         *  current one, so no two live buckets share a list.  A vertex may
+         *  be listed in buckets it has since left; such entries are
+         *  dropped when their bucket is taken. */
+        private final IntList[] _buckets;
+        /** The round in which each vertex last joined a frontier. */
+        private final int[] _stamps;
+        /** The current round. */
+        private int _round;
+        /** Per-chunk lists of vertices whose distances fell. */
+        private IntList[] _found;
+    }
+
+    /** The bits of Double.POSITIVE_INFINITY. */
+    private static final long INFINITY_BITS =
+        Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+    /** The largest number of buckets delta-stepping uses. */
+    private static final int MAX_BUCKETS = 1 << 16;
+    /** Number of vertices whose edges one task relaxes. */
+    private static final int RELAX_GRAIN = 256;
+    /** Number of vertices whose parents one task finds. */
+    private static final int PARENT_GRAIN = 4096;
+    /** Number of distances copied by one task. */
+    private static final int COPY_GRAIN = 1 << 16;
+
+    /** Not instantiable. */
+    private ShortestPaths() {
+    }
+}
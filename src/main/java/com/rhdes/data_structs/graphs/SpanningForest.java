@@ -0,0 +1,362 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** The edges of an undirected graph, flattened into arrays of endpoint
+ *  indices and weights, for computing minimum spanning forests (see
+ *  Graphs.minimumSpanningForest).  Ties between edges of equal weight are
+ *  broken by position in these arrays, so that all edges are totally
+ *  ordered and the minimum spanning forest is unique.
+ *  @author Ron Desmond
+ */
+class SpanningForest<VLabel, ELabel> {
+
+    /** The edges of G other than self-loops, weighted by EWEIGHTER, in
+     *  the order of the outgoing slots of their lower-indexed ends.  The
+     *  arrays are filled in parallel on POOL (so that EWEIGHTER may be
+     *  called from several threads at once), or on this thread if POOL
+     *  is null. */
+    SpanningForest(final CsrGraph<VLabel, ELabel> G,
+                   final Weighting<? super ELabel> eweighter,
+                   ForkJoinPool pool) {
+        final int n = G.vertexSize();
+        _n = n;
+        final int[] start = new int[n + 1];
+        forRange(pool, n, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int x = lo; x < hi; x += 1) {
+                        int count = 0;
+                        for (int k = G.outStart(x); k < G.outStart(x + 1);
+                             k += 1) {
+                            if (G.outTarget(k) > x) {
+                                count += 1;
+                            }
+                        }
+                        start[x + 1] = count;
+                    }
+                }
+            });
+        for (int x = 0; x < n; x += 1) {
+            start[x + 1] += start[x];
+        }
+        int m = start[n];
+        _u = new int[m];
+        _v = new int[m];
+        _w = new double[m];
+        _edges = new Object[m];
+        forRange(pool, n, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int x = lo; x < hi; x += 1) {
+                        int e = start[x];
+                        for (int k = G.outStart(x); k < G.outStart(x + 1);
+                             k += 1) {
+                            int y = G.outTarget(k);
+                            if (y > x) {
+                                _u[e] = x;
+                                _v[e] = y;
+                                _w[e] = eweighter.weight(G.outLabel(k));
+                                _edges[e] = G.outEdge(k);
+                                e += 1;
+                            }
+                        }
+                    }
+                }
+            });
+    }
+
+    /** Returns a minimum spanning forest, found by Kruskal's algorithm:
+     *  take the edges in order of weight, keeping each that joins two
+     *  trees of the forest so far. */
+    List<Graph<VLabel, ELabel>.Edge> kruskal() {
+        int m = _w.length;
+        int[] order = new int[m];
+        for (int e = 0; e < m; e += 1) {
+            order[e] = e;
+        }
+        sort(order, 0, m);
+        ArrayList<Graph<VLabel, ELabel>.Edge> result =
+            new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        UnionFind trees = new UnionFind(_n);
+        for (int k = 0; k < m && trees.count() > 1; k += 1) {
+            int e = order[k];
+            if (trees.union(_u[e], _v[e])) {
+                result.add(edge(e));
+            }
+        }
+        return result;
+    }
+
+    /** Returns a minimum spanning forest, found by Boruvka's algorithm
+     *  run in parallel on POOL.  Each tree of the forest so far is named
+     *  by one of its vertices, its root.  Each round finds, for every
+     *  tree, the lightest edge leaving it, and hooks the tree's root to
+     *  the root at the other end of that edge.  Since edges are totally
+     *  ordered, the hooks form no cycles except between two trees that
+     *  chose the same edge, where the lower root stays a root.  Every
+     *  other tree's edge joins the forest, pointer jumping then takes
+     *  every vertex to its new root, and the edges that now lie within
+     *  one tree are dropped.  Each round at least halves the number of
+     *  trees, and all its passes over the edges and vertices run in
+     *  parallel; only gathering the chosen edges into the result, which
+     *  totals at most N-1 edges, is sequential. */
+    List<Graph<VLabel, ELabel>.Edge> boruvka(ForkJoinPool pool) {
+        final int n = _n;
+        int[] comp = new int[n];
+        for (int x = 0; x < n; x += 1) {
+            comp[x] = x;
+        }
+        int[] hook = new int[n];
+        final AtomicIntegerArray lightest = new AtomicIntegerArray(n);
+        int[] live = new int[_w.length];
+        for (int e = 0; e < live.length; e += 1) {
+            live[e] = e;
+        }
+        ArrayList<Graph<VLabel, ELabel>.Edge> result =
+            new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        while (live.length > 0) {
+            final int[] root = comp, next = hook;
+            Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int c = lo; c < hi; c += 1) {
+                            lightest.set(c, -1);
+                        }
+                    }
+                });
+            final int[] edges = live;
+            Parallel.forRange(pool, edges.length, GRAIN, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int k = lo; k < hi; k += 1) {
+                            int e = edges[k];
+                            int cu = root[_u[e]], cv = root[_v[e]];
+                            if (cu != cv) {
+                                offer(lightest, cu, e);
+                                offer(lightest, cv, e);
+                            }
+                        }
+                    }
+                });
+            Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        for (int x = lo; x < hi; x += 1) {
+                            int e = lightest.get(x);
+                            if (root[x] != x || e < 0) {
+                                next[x] = root[x];
+                            } else if (root[_u[e]] == x) {
+                                next[x] = root[_v[e]];
+                            } else {
+                                next[x] = root[_u[e]];
+                            }
+                        }
+                    }
+                });
+            for (int e : hooked(pool, next, lightest, root)) {
+                result.add(edge(e));
+            }
+            jump(pool, next);
+            comp = next;
+            hook = root;
+            live = crossing(pool, edges, comp);
+        }
+        return result;
+    }
+
+    /** Given the hooks NEXT of the trees named by ROOT, each along the
+     *  edge recorded for it in LIGHTEST, makes the lower of each pair of
+     *  roots hooked to each other a root again, and returns the edges
+     *  along the remaining hooks of roots, gathered in parallel on
+     *  POOL. */
+    private int[] hooked(ForkJoinPool pool, final int[] next,
+                         final AtomicIntegerArray lightest,
+                         final int[] root) {
+        final int n = _n;
+        int nchunks = Parallel.chunks(n, GRAIN);
+        final IntList[] kept = new IntList[nchunks];
+        Parallel.forRange(pool, nchunks, 1, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int c = lo; c < hi; c += 1) {
+                        IntList out = new IntList();
+                        int end = Math.min(n, (c + 1) * GRAIN);
+                        for (int x = c * GRAIN; x < end; x += 1) {
+                            int y = next[x];
+                            if (root[x] != x || y == x) {
+                                continue;
+                            }
+                            if (next[y] == x && x < y) {
+                                next[x] = x;
+                            } else {
+                                out.add(lightest.get(x));
+                            }
+                        }
+                        kept[c] = out;
+                    }
+                }
+            });
+        return concat(kept);
+    }
+
+    /** Replaces each NEXT[x] by the root at the end of the chain of
+     *  NEXT links from x, halving the length of every chain in each
+     *  parallel pass on POOL. */
+    private static void jump(ForkJoinPool pool, final int[] next) {
+        final AtomicBoolean changed = new AtomicBoolean(true);
+        while (changed.get()) {
+            changed.set(false);
+            Parallel.forRange(pool, next.length, GRAIN,
+                              new Parallel.Body() {
+                    public void run(int lo, int hi) {
+                        boolean any = false;
+                        for (int x = lo; x < hi; x += 1) {
+                            int y = next[next[x]];
+                            if (y != next[x]) {
+                                next[x] = y;
+                                any = true;
+                            }
+                        }
+                        if (any) {
+                            changed.set(true);
+                        }
+                    }
+                });
+        }
+    }
+
+    /** Makes edge E the lightest known edge leaving tree C in LIGHTEST,
+     *  unless a lighter one is already recorded. */
+    private void offer(AtomicIntegerArray lightest, int c, int e) {
+        while (true) {
+            int cur = lightest.get(c);
+            if (cur >= 0 && !lighter(e, cur)) {
+                return;
+            }
+            if (lightest.compareAndSet(c, cur, e)) {
+                return;
+            }
+        }
+    }
+
+    /** Returns those of EDGES whose ends lie in different trees according
+     *  to COMP, selected in parallel on POOL. */
+    private int[] crossing(ForkJoinPool pool, final int[] edges,
+                           final int[] comp) {
+        int nchunks = Parallel.chunks(edges.length, GRAIN);
+        final IntList[] kept = new IntList[nchunks];
+        Parallel.forRange(pool, nchunks, 1, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int c = lo; c < hi; c += 1) {
+                        IntList out = new IntList();
+                        int end = Math.min(edges.length, (c + 1) * GRAIN);
+                        for (int k = c * GRAIN; k < end; k += 1) {
+                            int e = edges[k];
+                            if (comp[_u[e]] != comp[_v[e]]) {
+                                out.add(e);
+                            }
+                        }
+                        kept[c] = out;
+                    }
+                }
+            });
+        return concat(kept);
+    }
+
+    /** Returns the items of the lists in LISTS, in order. */
+    private static int[] concat(IntList[] lists) {
+        int size = 0;
+        for (IntList list : lists) {
+            size += list.size();
+        }
+        int[] result = new int[size];
+        int k = 0;
+        for (IntList list : lists) {
+            list.copyInto(result, k);
+            k += list.size();
+        }
+        return result;
+    }
+
+    /** Returns true iff edge A precedes edge B: it is lighter, or equally
+     *  heavy and earlier. */
+    private boolean lighter(int a, int b) {
+        return _w[a] < _w[b] || (_w[a] == _w[b] && a < b);
+    }
+
+    /** Sorts EDGES[LO .. HI-1] into the order given by lighter. */
+    private void sort(int[] edges, int lo, int hi) {
+        while (hi - lo > INSERTION_SORT_SIZE) {
+            int mid = (lo + hi) >>> 1;
+            int a = edges[lo], b = edges[mid], c = edges[hi - 1];
+            int pivot;
+            if (lighter(a, b)) {
+                pivot = lighter(b, c) ? b : lighter(a, c) ? c : a;
+            } else {
+                pivot = lighter(a, c) ? a : lighter(b, c) ? c : b;
+            }
+            int i = lo, j = hi - 1;
+            while (i <= j) {
+                while (lighter(edges[i], pivot)) {
+                    i += 1;
+                }
+                while (lighter(pivot, edges[j])) {
+                    j -= 1;
+                }
+                if (i <= j) {
+                    int tmp = edges[i];
+                    edges[i] = edges[j];
+                    edges[j] = tmp;
+                    i += 1;
+                    j -= 1;
+                }
+            }
+            if (j + 1 - lo < hi - i) {
+                sort(edges, lo, j + 1);
+                lo = i;
+            } else {
+                sort(edges, i, hi);
+                hi = j + 1;
+            }
+        }
+        for (int i = lo + 1; i < hi; i += 1) {
+            int e = edges[i];
+            int j = i - 1;
+            while (j >= lo && lighter(e, edges[j])) {
+                edges[j + 1] = edges[j];
+                j -= 1;
+            }
+            edges[j + 1] = e;
+        }
+    }
+
+    /** Performs BODY on 0 .. N-1 on POOL, or on this thread if POOL is
+     *  null. */
+    private static void forRange(ForkJoinPool pool, int n,
+                                 Parallel.Body body) {
+        if (pool == null) {
+            body.run(0, n);
+        } else {
+            Parallel.forRange(pool, n, GRAIN, body);
+        }
+    }
+
+    /** Returns the edge at position E. */
+    @SuppressWarnings("unchecked")
+    private Graph<VLabel, ELabel>.Edge edge(int e) {
+        return (Graph<VLabel, ELabel>.Edge) _edges[e];
+    }
+
+    /** Number of items each parallel task handles. */
+    private static final int GRAIN = 1 << 14;
+    /** Ranges no longer than this are sorted by insertion. */
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    /** Number of vertices. */
+    private final int _n;
+    /** The indices of the ends of each edge. */
+    private final int[] _u, _v;
+    /** The weight of each edge. */
+    private final double[] _w;
+    /** The edges themselves. */
+    private final Object[] _edges;
+}
@@ -1,9 +1,8 @@
 package com.rhdes.data_structs.graphs;
 
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.PriorityQueue;
-import java.util.LinkedList;
 
 /** Implements a generalized traversal of a graph.  At any given time,
  *  there is a particular set of untraversed vertices---the "fringe."
@@ -45,7 +44,7 @@ public class Traversal<VLabel, ELabel> {
                          Comparator<VLabel> order) {
         _graph = G;
         _finalVertex = null;
-        _marked = new HashSet<Graph<VLabel, ELabel>.Vertex>();
+        _marked.clear(G.vertexSize());
         final Comparator<VLabel> finalOrder = order;
         _comparator = new Comparator<Graph<VLabel, ELabel>.Vertex>() {
             public int compare(Graph<VLabel, ELabel>.Vertex v1,
@@ -66,11 +65,11 @@ public class Traversal<VLabel, ELabel> {
         while (fringe.size() > 0) {
             Graph<VLabel, ELabel>.Vertex curV = fringe.poll();
             try {
-                if (!_marked.contains(curV)) {
-                    _marked.add(curV);
+                if (!isMarked(curV)) {
+                    mark(curV);
                     visit(curV);
                     for (Graph<VLabel, ELabel>.Edge e: _graph.outEdges(curV)) {
-                        if (!_marked.contains(e.getV(curV))) {
+                        if (!isMarked(e.getV(curV))) {
                             preVisit(e, curV);
                             fringe.add(e.getV(curV));
                         }
@@ -88,68 +87,130 @@ public class Traversal<VLabel, ELabel> {
      *  vertices are added to it or removed from it at one end in
      *  an undefined order.  After the traversal of all successors of
      *  a node is complete, the node itself is revisited by calling
-     *  the postVisit method on it. */
+     *  the postVisit method on it.  The traversal keeps its own stack,
+     *  so the depth of the graph is not limited by the thread's stack. */
     public void depthFirstTraverse(Graph<VLabel, ELabel> G,
                                    Graph<VLabel, ELabel>.Vertex v) {
         _graph = G;
-        _marked = new HashSet<Graph<VLabel, ELabel>.Vertex>();
+        _marked.clear(G.vertexSize());
         _curTraversal = "dft";
         _finalVertex = null;
+        _finalEdge = null;
+        depthHelper(v);
+    }
+
+    /** Traverses depth-first from V, skipping marked vertices.  Each
+     *  vertex on the stack of vertices being traversed owns the range
+     *  _dfsCursor[i] .. _dfsEnd[i]-1 of _pending, which holds its
+     *  successors that were not marked or rejected when it was visited
+     *  and have not yet been traversed from it. */
+    private void depthHelper(Graph<VLabel, ELabel>.Vertex v) {
+        _dfsDepth = 0;
+        _pendingSize = 0;
+        Graph<VLabel, ELabel>.Vertex curV = v;
         try {
-            depthHelper(G, v, _marked, false);
+            if (!isMarked(v)) {
+                enter(v);
+            }
+            while (_dfsDepth > 0) {
+                int top = _dfsDepth - 1;
+                curV = stackVertex(top);
+                if (_dfsCursor[top] < _dfsEnd[top]) {
+                    Graph<VLabel, ELabel>.Vertex child =
+                        pendingVertex(_dfsCursor[top]);
+                    _dfsCursor[top] += 1;
+                    if (!isMarked(child)) {
+                        curV = child;
+                        enter(child);
+                    }
+                } else {
+                    _dfsDepth -= 1;
+                    _pendingSize = _dfsStart[top];
+                    _dfsVertices[top] = null;
+                    finish(curV);
+                }
+            }
         } catch (StopException e) {
-            return;
+            _finalVertex = curV;
+        } finally {
+            Arrays.fill(_pending, 0, _pendingSize, null);
+            Arrays.fill(_dfsVertices, 0, _dfsDepth, null);
         }
-        _curTraversal = "";
     }
-    /** Recursively navigates graph G from vertex V
-     *  with a hashmap of MARKED vertices.  STOPPED
-     *  indicates if a later node called a stop exception.
-     */
-    private void depthHelper(Graph<VLabel, ELabel> G,
-                             Graph<VLabel, ELabel>.Vertex v,
-                             HashSet<Graph<VLabel, ELabel>.Vertex> marked,
-                             Boolean stopped) {
+
+    /** Marks and visits V, which is unmarked.  Unless the visit rejects
+     *  V, pre-visits its unmarked successors, records the ones that are
+     *  not rejected as pending, and pushes V on the stack.  Otherwise,
+     *  V is finished at once. */
+    private void enter(Graph<VLabel, ELabel>.Vertex v) {
+        mark(v);
         try {
-            if (marked.contains(v)) {
-                return;
-            } else {
-                marked.add(v);
+            visit(v);
+        } catch (RejectException rExc) {
+            finish(v);
+            return;
+        }
+        int start = _pendingSize;
+        for (Graph<VLabel, ELabel>.Edge e: _graph.outEdges(v)) {
+            Graph<VLabel, ELabel>.Vertex child = e.getV(v);
+            if (!isMarked(child)) {
                 try {
-                    visit(v);
+                    preVisit(e, v);
                 } catch (RejectException rExc) {
-                    postVisit(v);
-                    return;
+                    continue;
+                } catch (StopException sExc) {
+                    _finalEdge = e;
+                    throw sExc;
                 }
-                HashSet<Graph<VLabel, ELabel>.Vertex> reject =
-                    new HashSet<Graph<VLabel, ELabel>.Vertex>();
-                for (Graph<VLabel, ELabel>.Edge e: G.outEdges(v)) {
-                    try {
-                        if (!marked.contains(e.getV(v))) {
-                            preVisit(e, v);
-                        }
-                    } catch (RejectException rExc) {
-                        reject.add(e.getV(v));
-                    }
+                if (_pendingSize == _pending.length) {
+                    _pending = Arrays.copyOf(_pending, 2 * _pendingSize);
                 }
-                for (Graph<VLabel, ELabel>.Edge e: G.outEdges(v)) {
-                    if (!reject.contains(e.getV(v))) {
-                        depthHelper(G, e.getV(v), _marked, false);
-                    }
-                }
-                try {
-                    postVisit(v);
-                } catch (RejectException rExc) {
-                    int emptyCatchStylecheck = 0;
-                }
-            }
-        } catch (StopException exc) {
-            if (!stopped) {
-                _finalVertex = v;
-                stopped = true;
+                _pending[_pendingSize] = child;
+                _pendingSize += 1;
             }
-            throw new StopException();
         }
+        if (_dfsDepth == _dfsVertices.length) {
+            int cap = 2 * _dfsDepth;
+            _dfsVertices = Arrays.copyOf(_dfsVertices, cap);
+            _dfsStart = Arrays.copyOf(_dfsStart, cap);
+            _dfsCursor = Arrays.copyOf(_dfsCursor, cap);
+            _dfsEnd = Arrays.copyOf(_dfsEnd, cap);
+        }
+        _dfsVertices[_dfsDepth] = v;
+        _dfsStart[_dfsDepth] = _dfsCursor[_dfsDepth] = start;
+        _dfsEnd[_dfsDepth] = _pendingSize;
+        _dfsDepth += 1;
+    }
+
+    /** Post-visits V, ignoring any rejection. */
+    private void finish(Graph<VLabel, ELabel>.Vertex v) {
+        try {
+            postVisit(v);
+        } catch (RejectException rExc) {
+            return;
+        }
+    }
+
+    /** Returns the vertex at depth K of the depth-first stack. */
+    @SuppressWarnings("unchecked")
+    private Graph<VLabel, ELabel>.Vertex stackVertex(int k) {
+        return (Graph<VLabel, ELabel>.Vertex) _dfsVertices[k];
+    }
+
+    /** Returns true iff V has been marked in the current traversal. */
+    private boolean isMarked(Graph<VLabel, ELabel>.Vertex v) {
+        return _marked.isMarked(_graph.index(v));
+    }
+
+    /** Marks V as traversed. */
+    private void mark(Graph<VLabel, ELabel>.Vertex v) {
+        _marked.mark(_graph.index(v));
+    }
+
+    /** Returns the pending vertex at position K. */
+    @SuppressWarnings("unchecked")
+    private Graph<VLabel, ELabel>.Vertex pendingVertex(int k) {
+        return (Graph<VLabel, ELabel>.Vertex) _pending[k];
     }
 
     /** Performs a breadth-first traversal of G over all vertices
@@ -162,49 +223,57 @@ public class Traversal<VLabel, ELabel> {
                                      Graph<VLabel, ELabel>.Vertex v) {
         _graph = G;
         _finalVertex = null;
+        _finalEdge = null;
         _curTraversal = "bft";
-        _marked = new HashSet<Graph<VLabel, ELabel>.Vertex>();
+        _marked.clear(G.vertexSize());
         breadthHelper(v);
     }
 
-    /** Traverses V using a breadth-first traversal. */
+    /** Traverses breadth-first from V, skipping marked vertices.  The
+     *  fringe holds vertex indices, shifted left one bit.  Entries with a
+     *  0 low bit are vertices to visit, and entries with a 1 low bit
+     *  are visited vertices to post-visit.  A visited vertex is queued
+     *  for post-visiting behind its successors, so it is post-visited
+     *  once everything queued before it has been processed.  Each vertex
+     *  is visited and post-visited once, and each edge is examined once,
+     *  so the traversal takes time linear in the size of the graph. */
     private void breadthHelper(Graph<VLabel, ELabel>.Vertex v) {
-        LinkedList<Graph<VLabel, ELabel>.Vertex> fringe =
-            new LinkedList<Graph<VLabel, ELabel>.Vertex>();
-        fringe.add(v);
-        while (fringe.size() > 0) {
-            Graph<VLabel, ELabel>.Vertex curV = fringe.poll();
-            try {
-                if (!_marked.contains(curV)) {
-                    _marked.add(curV);
+        _fringe.clear();
+        _fringe.add(_graph.index(v) << 1);
+        Graph<VLabel, ELabel>.Vertex curV = v;
+        try {
+            while (!_fringe.isEmpty()) {
+                int entry = _fringe.poll();
+                curV = _graph.vertex(entry >>> 1);
+                if ((entry & 1) != 0) {
+                    finish(curV);
+                } else if (!isMarked(curV)) {
+                    mark(curV);
                     try {
                         visit(curV);
                     } catch (RejectException rExc) {
-                        fringe.add(curV);
+                        _fringe.add(entry | 1);
                         continue;
                     }
                     for (Graph<VLabel, ELabel>.Edge e: _graph.outEdges(curV)) {
                         Graph<VLabel, ELabel>.Vertex child = e.getV(curV);
-                        if (!_marked.contains(child)) {
+                        if (!isMarked(child)) {
                             try {
                                 preVisit(e, curV);
-                                fringe.add(child);
                             } catch (RejectException rExc) {
-                                int unused = 0;
+                                continue;
+                            } catch (StopException sExc) {
+                                _finalEdge = e;
+                                throw sExc;
                             }
+                            _fringe.add(_graph.index(child) << 1);
                         }
                     }
-                    fringe.add(curV);
-                } else {
-                    postVisit(curV);
-                    while (fringe.remove(curV)) {
-                        continue;
-                    }
+                    _fringe.add(entry | 1);
                 }
-            } catch (StopException sExc) {
-                _finalVertex = curV;
-                return;
             }
+        } catch (StopException sExc) {
+            _finalVertex = curV;
         }
     }
 
@@ -212,16 +281,15 @@ public class Traversal<VLabel, ELabel> {
      *  Continuing a traversal means that we do not traverse
      *  vertices or edges that have been traversed previously. */
     public void continueTraversing(Graph<VLabel, ELabel>.Vertex v) {
-        if (_curTraversal.equals("dfs")) {
-            try {
-                depthHelper(_graph, v, _marked, false);
-            } catch (StopException e) {
-                return;
-            }
+        if (_curTraversal.equals("dft")) {
             _finalVertex = null;
+            _finalEdge = null;
+            depthHelper(v);
         } else if (_curTraversal.equals("gt")) {
             traverseHelper(v);
         } else if (_curTraversal.equals("bft")) {
+            _finalVertex = null;
+            _finalEdge = null;
             breadthHelper(v);
         }
     }
@@ -276,10 +344,32 @@ public class Traversal<VLabel, ELabel> {
     /** The graph currently being traversed. */
     protected Graph<VLabel, ELabel> _graph;
 
-    /** Keeps track of marked vertices in the graph for continueTraversal. */
-    private HashSet<Graph<VLabel, ELabel>.Vertex> _marked;
+    /** Keeps track of marked vertices in the graph for continueTraversal,
+     *  by index.  Reused by each traversal. */
+    private final VertexMarks _marked = new VertexMarks();
     /** The comparator the current traversal uses. */
     private Comparator<Graph<VLabel, ELabel>.Vertex> _comparator;
     /** Indicates what traversal is currently in progress. */
     private String _curTraversal;
+
+    /** The vertices on the depth-first stack, deepest last. */
+    private Object[] _dfsVertices = new Object[16];
+    /** For each vertex on the depth-first stack, where its pending
+     *  successors start in _pending. */
+    private int[] _dfsStart = new int[16];
+    /** For each vertex on the depth-first stack, the position in
+     *  _pending of its next successor to traverse. */
+    private int[] _dfsCursor = new int[16];
+    /** For each vertex on the depth-first stack, the position just past
+     *  its last pending successor. */
+    private int[] _dfsEnd = new int[16];
+    /** Number of vertices on the depth-first stack. */
+    private int _dfsDepth;
+    /** Successors waiting to be traversed from the vertices on the
+     *  depth-first stack. */
+    private Object[] _pending = new Object[16];
+    /** Number of entries in _pending. */
+    private int _pendingSize;
+    /** The fringe of the breadth-first traversal. */
+    private final IntQueue _fringe = new IntQueue();
 }
@@ -0,0 +1,230 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** The triangles of an undirected graph: sets of three vertices that are
+ *  pairwise adjacent.  Parallel edges and self-loops are ignored, so the
+ *  degree of a vertex here is its number of distinct neighbors other
+ *  than itself.  Per-vertex results are indexed by G.index(v).
+ *  @author Ron Desmond
+ */
+public final class Triangles {
+
+    /** Returns the triangles of G, counted on POOL over a CsrGraph
+     *  snapshot of G (G.freeze()), which must not change meanwhile.
+     *
+     *  Each edge is oriented from the endpoint of lower degree to that
+     *  of higher (breaking ties by index), which leaves every vertex with
+     *  O(sqrt(E)) outgoing edges and every triangle with exactly one
+     *  vertex having edges to the other two.  For each oriented edge
+     *  u->v, the triangles containing it are then found by merging the
+     *  sorted outgoing neighbor lists of u and v, so each triangle is
+     *  found exactly once, in O(E^1.5) time overall.  The counts of
+     *  corners are kept in one shared array of atomic counters, so the
+     *  memory used is O(V + E) whatever the number of threads.  The two
+     *  ends of an oriented edge are credited once per edge rather than
+     *  once per triangle, leaving one atomic update per triangle. */
+    public static <VLabel, ELabel> Triangles
+    count(UndirectedGraph<VLabel, ELabel> G, ForkJoinPool pool) {
+        final CsrGraph<VLabel, ELabel> csr = G.freeze();
+        final int n = csr.vertexSize();
+        final int[] neighbors = new int[csr.outStart(n)];
+        final int[] degree = new int[n];
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        int start = csr.outStart(v),
+                            end = csr.outStart(v + 1);
+                        for (int k = start; k < end; k += 1) {
+                            neighbors[k] = csr.outTarget(k);
+                        }
+                        Arrays.sort(neighbors, start, end);
+                        int d = 0;
+                        for (int k = start; k < end; k += 1) {
+                            int w = neighbors[k];
+                            if (w != v && (d == 0
+                                           || w != neighbors[start + d - 1])) {
+                                neighbors[start + d] = w;
+                                d += 1;
+                            }
+                        }
+                        degree[v] = d;
+                    }
+                }
+            });
+
+        final int[] upStart = new int[n + 1];
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        int start = csr.outStart(v), up = 0;
+                        for (int k = start; k < start + degree[v]; k += 1) {
+                            if (above(neighbors[k], v, degree)) {
+                                up += 1;
+                            }
+                        }
+                        upStart[v + 1] = up;
+                    }
+                }
+            });
+        for (int v = 0; v < n; v += 1) {
+            upStart[v + 1] += upStart[v];
+        }
+        final int[] up = new int[upStart[n]];
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        int start = csr.outStart(v), j = upStart[v];
+                        for (int k = start; k < start + degree[v]; k += 1) {
+                            if (above(neighbors[k], v, degree)) {
+                                up[j] = neighbors[k];
+                                j += 1;
+                            }
+                        }
+                    }
+                }
+            });
+
+        final AtomicLongArray corners = new AtomicLongArray(n);
+        Parallel.forRange(pool, n, TRIANGLE_GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int u = lo; u < hi; u += 1) {
+                        countAt(u, upStart, up, corners);
+                    }
+                }
+            });
+
+        final long[] triangles = new long[n];
+        Parallel.forRange(pool, n, GRAIN, new Parallel.Body() {
+                public void run(int lo, int hi) {
+                    for (int v = lo; v < hi; v += 1) {
+                        triangles[v] = corners.get(v);
+                    }
+                }
+            });
+        long total = 0;
+        for (int v = 0; v < n; v += 1) {
+            total += triangles[v];
+        }
+        return new Triangles(triangles, degree, total / 3);
+    }
+
+    /** Adds to CORNERS, for each triangle whose lowest-ranked corner is
+     *  U, one for each of its three corners, where the oriented edges
+     *  out of each vertex v are UP[UPSTART[v] .. UPSTART[v+1]-1], sorted
+     *  by index.  U and the far end of each of its oriented edges are
+     *  credited once per edge with all the triangles on that edge, so
+     *  only the third corners take one update per triangle. */
+    private static void countAt(int u, int[] upStart, int[] up,
+                                AtomicLongArray corners) {
+        long mine = 0;
+        for (int k = upStart[u]; k < upStart[u + 1]; k += 1) {
+            int v = up[k];
+            int i = upStart[u], iend = upStart[u + 1],
+                j = upStart[v], jend = upStart[v + 1];
+            long shared = 0;
+            while (i < iend && j < jend) {
+                if (up[i] < up[j]) {
+                    i += 1;
+                } else if (up[i] > up[j]) {
+                    j += 1;
+                } else {
+                    corners.getAndIncrement(up[i]);
+                    shared += 1;
+                    i += 1;
+                    j += 1;
+                }
+            }
+            if (shared > 0) {
+                corners.getAndAdd(v, shared);
+                mine += shared;
+            }
+        }
+        if (mine > 0) {
+            corners.getAndAdd(u, mine);
+        }
+    }
+
+    /** Returns true iff edges are oriented from V to W: W has higher
+     *  degree according to DEGREE, or equal degree and higher index. */
+    private static boolean above(int w, int v, int[] degree) {
+        return degree[w] > degree[v] || (degree[w] == degree[v] && w > v);
+    }
+
+    /** The triangle counts TRIANGLES and degrees DEGREE of the vertices
+     *  of a graph with TOTAL triangles in all. */
+    Triangles(long[] triangles, int[] degree, long total) {
+        _triangles = triangles;
+        _degree = degree;
+        _total = total;
+    }
+
+    /** Returns the number of triangles in the graph. */
+    public long total() {
+        return _total;
+    }
+
+    /** Returns a new array of the number of triangles containing each
+     *  vertex. */
+    public long[] perVertex() {
+        return Arrays.copyOf(_triangles, _triangles.length);
+    }
+
+    /** Returns the local clustering coefficient of each vertex: the
+     *  fraction of pairs of its neighbors that are adjacent, or 0 for
+     *  vertices with fewer than two neighbors. */
+    public double[] clustering() {
+        double[] result = new double[_triangles.length];
+        for (int v = 0; v < result.length; v += 1) {
+            result[v] = clustering(v);
+        }
+        return result;
+    }
+
+    /** Returns the mean of the local clustering coefficients of all
+     *  vertices, or 0 if there are none. */
+    public double averageClustering() {
+        if (_triangles.length == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int v = 0; v < _triangles.length; v += 1) {
+            sum += clustering(v);
+        }
+        return sum / _triangles.length;
+    }
+
+    /** Returns the global clustering coefficient (transitivity): three
+     *  times the number of triangles divided by the number of paths of
+     *  two edges, or 0 if there are no such paths. */
+    public double transitivity() {
+        long wedges = 0;
+        for (int d : _degree) {
+            wedges += (long) d * (d - 1) / 2;
+        }
+        return wedges == 0 ? 0.0 : 3.0 * _total / wedges;
+    }
+
+    /** Returns the local clustering coefficient of the vertex with index
+     *  V. */
+    private double clustering(int v) {
+        long d = _degree[v];
+        return d < 2 ? 0.0 : 2.0 * _triangles[v] / (d * (d - 1));
+    }
+
+    /** Number of vertices each parallel task handles while building the
+     *  oriented graph. */
+    private static final int GRAIN = 1 << 12;
+    /** Number of vertices each parallel task handles while counting
+     *  triangles.  Smaller, since vertices' costs vary widely. */
+    private static final int TRIANGLE_GRAIN = 1 << 8;
+
+    /** Number of triangles containing each vertex. */
+    private final long[] _triangles;
+    /** Number of distinct neighbors of each vertex. */
+    private final int[] _degree;
+    /** Number of triangles. */
+    private final long _total;
+}
@@ -1,7 +1,5 @@
 package com.rhdes.data_structs.graphs;
 
-import java.util.LinkedList;
-
 /* Do not add or remove public or protected members, or modify the signatures of
  * any public methods.  You may add bodies to abstract methods, modify
  * existing bodies, or override inherited methods.  */
@@ -35,30 +33,9 @@ public class UndirectedGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
             || super.contains(v, u, label);
     }
 
-    @Override
-    public void remove(Vertex v) {
-        LinkedList<Edge> iter
-            = new LinkedList<Edge>();
-        for (Edge e: outEdges(v)) {
-            iter.add(e);
-        }
-        while (iter.size() > 0) {
-            remove(iter.get(0));
-            iter.remove();
-        }
-        super.remove(v);
-    }
-
     @Override
     public Iteration<Vertex> successors(Vertex v) {
-        LinkedList<Vertex> succs = new LinkedList<Vertex>();
-        for (Vertex buildSucc: super.successors(v)) {
-            succs.add(buildSucc);
-        }
-        for (Vertex buildPred: super.predecessors(v)) {
-            succs.add(buildPred);
-        }
-        return Iteration.iteration(succs);
+        return Iteration.concat(super.successors(v), super.predecessors(v));
     }
 
     @Override
@@ -68,14 +45,7 @@ public class UndirectedGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
 
     @Override
     public Iteration<Edge> outEdges(Vertex v) {
-        LinkedList<Edge> out = new LinkedList<Edge>();
-        for (Edge e: super.outEdges(v)) {
-            out.add(e);
-        }
-        for (Edge e: super.inEdges(v)) {
-            out.add(e);
-        }
-        return Iteration.iteration(out);
+        return Iteration.concat(super.outEdges(v), super.inEdges(v));
     }
     @Override
     public Iteration<Edge> inEdges(Vertex v) {
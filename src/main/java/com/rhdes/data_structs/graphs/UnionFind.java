@@ -0,0 +1,67 @@
+package com.rhdes.data_structs.graphs;
+
+/** A partition of the ints 0 .. N-1 into disjoint sets (a disjoint-set
+ *  forest).  Each set is a tree whose root represents it.  Finding a
+ *  root halves the path to it (pointing every other element at its
+ *  grandparent), and union hangs the smaller tree beneath the larger, so
+ *  any sequence of operations takes nearly constant amortized time
+ *  each.
+ *  @author Ron Desmond
+ */
+class UnionFind {
+
+    /** N singleton sets, {0}, {1}, ..., {N-1}. */
+    UnionFind(int n) {
+        _parent = new int[n];
+        _size = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            _parent[i] = i;
+            _size[i] = 1;
+        }
+        _count = n;
+    }
+
+    /** Returns the representative of the set containing X. */
+    int find(int x) {
+        while (_parent[x] != x) {
+            _parent[x] = _parent[_parent[x]];
+            x = _parent[x];
+        }
+        return x;
+    }
+
+    /** Merges the sets containing X and Y.  Returns false (doing nothing)
+     *  if they were already the same set. */
+    boolean union(int x, int y) {
+        int rx = find(x), ry = find(y);
+        if (rx == ry) {
+            return false;
+        }
+        if (_size[rx] < _size[ry]) {
+            int tmp = rx;
+            rx = ry;
+            ry = tmp;
+        }
+        _parent[ry] = rx;
+        _size[rx] += _size[ry];
+        _count -= 1;
+        return true;
+    }
+
+    /** Returns true iff X and Y are in the same set. */
+    boolean connected(int x, int y) {
+        return find(x) == find(y);
+    }
+
+    /** Returns the number of sets. */
+    int count() {
+        return _count;
+    }
+
+    /** The parent of each element; roots are their own parents. */
+    private final int[] _parent;
+    /** The number of elements in the tree under each root. */
+    private final int[] _size;
+    /** Number of sets. */
+    private int _count;
+}
@@ -0,0 +1,46 @@
+package com.rhdes.data_structs.graphs;
+
+import java.util.Arrays;
+
+/** A set of marked vertex indices that can be emptied in constant time.
+ *  Each index carries the stamp of the last round in which it was
+ *  marked, and an index is marked iff its stamp is the current round,
+ *  so starting a new round unmarks everything without touching the
+ *  array.  Reusing one VertexMarks for many traversals of the same
+ *  graph therefore allocates nothing after the first.
+ *  @author Ron Desmond
+ */
+class VertexMarks {
+
+    /** Unmarks every index, preparing for indices 0 .. N-1. */
+    void clear(int n) {
+        if (_stamps.length < n) {
+            _stamps = new int[n];
+            _round = 0;
+        }
+        _round += 1;
+        if (_round == 0) {
+            Arrays.fill(_stamps, 0);
+            _round = 1;
+        }
+    }
+
+    /** Returns true iff I is marked. */
+    boolean isMarked(int i) {
+        return i < _stamps.length && _stamps[i] == _round;
+    }
+
+    /** Marks I. */
+    void mark(int i) {
+        if (i >= _stamps.length) {
+            _stamps = Arrays.copyOf(_stamps, Math.max(i + 1,
+                                                      2 * _stamps.length));
+        }
+        _stamps[i] = _round;
+    }
+
+    /** The round in which each index was last marked. */
+    private int[] _stamps = new int[0];
+    /** The current round. */
+    private int _round;
+}
@@ -2,11 +2,26 @@ package com.rhdes.data_structs;
 
 import org.junit.Test;
 
+import com.rhdes.data_structs.graphs.BreadthFirstSearch;
+import com.rhdes.data_structs.graphs.Centrality;
+import com.rhdes.data_structs.graphs.Components;
+import com.rhdes.data_structs.graphs.ContractionHierarchy;
+import com.rhdes.data_structs.graphs.CsrGraph;
+import com.rhdes.data_structs.graphs.CycleException;
+import com.rhdes.data_structs.graphs.Dags;
 import com.rhdes.data_structs.graphs.DirectedGraph;
 import com.rhdes.data_structs.graphs.Distancer;
 import com.rhdes.data_structs.graphs.Graph;
 import com.rhdes.data_structs.graphs.Graphs;
+import com.rhdes.data_structs.graphs.IntGraph;
+import com.rhdes.data_structs.graphs.Landmarks;
+import com.rhdes.data_structs.graphs.PageRank;
+import com.rhdes.data_structs.graphs.RejectException;
+import com.rhdes.data_structs.graphs.ShortestPathTree;
+import com.rhdes.data_structs.graphs.ShortestPaths;
+import com.rhdes.data_structs.graphs.StopException;
 import com.rhdes.data_structs.graphs.Traversal;
+import com.rhdes.data_structs.graphs.Triangles;
 import com.rhdes.data_structs.graphs.UndirectedGraph;
 import com.rhdes.data_structs.graphs.Weighter;
 import com.rhdes.data_structs.graphs.Weighting;
@@ -15,9 +30,21 @@ import com.rhdes.data_structs.graphs.Graph.Vertex;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /* You MAY add public @Test methods to this class.  You may also add
  * additional public classes containing "Testing" in their name. These
@@ -202,4 +229,1335 @@ public class GraphTests {
         assertEquals(tester, "D C A ");
     }
 
+    /** Returns a vertex weighter that keeps weights in a map, for graphs
+     *  whose vertex labels are Strings. */
+    private static Weighter<String> mapWeighter() {
+        return new Weighter<String>() {
+            public void setWeight(String v, double d) {
+                _weights.put(v, d);
+            }
+            public double weight(String v) {
+                return _weights.get(v);
+            }
+            private HashMap<String, Double> _weights =
+                new HashMap<String, Double>();
+        };
+    }
+
+    /** An edge weighting that uses Integer edge labels as weights. */
+    private static final Weighting<Integer> INT_WEIGHTS =
+        new Weighting<Integer>() {
+            public double weight(Integer x) {
+                return (double) x;
+            }
+        };
+
+    @Test
+    public void testShortestPathDecreaseKey() {
+        DirectedGraph<String, Integer> g =
+            new DirectedGraph<String, Integer>();
+        Graph<String, Integer>.Vertex s = g.add("S");
+        Graph<String, Integer>.Vertex a = g.add("A");
+        Graph<String, Integer>.Vertex b = g.add("B");
+        Graph<String, Integer>.Vertex c = g.add("C");
+        Graph<String, Integer>.Vertex t = g.add("T");
+        Graph<String, Integer>.Vertex lone = g.add("L");
+        g.add(s, a, 10);
+        g.add(s, b, 1);
+        g.add(b, c, 1);
+        g.add(c, a, 1);
+        g.add(a, t, 1);
+        g.add(s, t, 20);
+        Weighter<String> vweighter = mapWeighter();
+        List<Graph<String, Integer>.Edge> path =
+            Graphs.shortestPath(g, s, t, Graphs.ZERO_DISTANCER,
+                                vweighter, INT_WEIGHTS);
+        assertEquals(4, path.size());
+        assertSame(b, path.get(0).getV1());
+        assertSame(t, path.get(3).getV1());
+        assertEquals(4.0, vweighter.weight("T"), 0.0);
+        assertNull(Graphs.shortestPath(g, s, lone, Graphs.ZERO_DISTANCER,
+                                       vweighter, INT_WEIGHTS));
+        assertEquals(Double.POSITIVE_INFINITY, vweighter.weight("L"), 0.0);
+    }
+
+    @Test
+    public void testFrozenGraph() {
+        UndirectedGraph<String, Integer> g =
+            new UndirectedGraph<String, Integer>();
+        Graph<String, Integer>.Vertex v1 = g.add("A");
+        Graph<String, Integer>.Vertex v2 = g.add("B");
+        Graph<String, Integer>.Vertex v3 = g.add("C");
+        Graph<String, Integer>.Vertex v4 = g.add("D");
+        Graph<String, Integer>.Vertex v5 = g.add("E");
+        Graph<String, Integer>.Vertex v6 = g.add("F");
+        g.add(v1, v2, 1);
+        g.add(v1, v3, 1);
+        g.add(v1, v4, 1);
+        g.add(v4, v5, 1);
+        g.add(v4, v6, 1);
+        CsrGraph<String, Integer> frozen = g.freeze();
+        assertEquals(6, frozen.vertexSize());
+        assertEquals(5, frozen.edgeSize());
+        assertEquals(3, frozen.degree(v4));
+        assertTrue(frozen.contains(v5, v4));
+        assertFalse(frozen.contains(v5, v6));
+
+        PrintTraversal<String, Integer> t1 =
+            new PrintTraversal<String, Integer>();
+        PrintTraversal<String, Integer> t2 =
+            new PrintTraversal<String, Integer>();
+        t1.depthFirstTraverse(g, v1);
+        t2.depthFirstTraverse(frozen, v1);
+        assertEquals(t1.getString(), t2.getString());
+        t1.breadthFirstTraverse(g, v1);
+        t2.breadthFirstTraverse(frozen, v1);
+        assertEquals(t1.getString(), t2.getString());
+
+        List<Graph<String, Integer>.Edge> path =
+            Graphs.shortestPath(frozen, v2, v6, Graphs.ZERO_DISTANCER,
+                                mapWeighter(), INT_WEIGHTS);
+        assertEquals(3, path.size());
+
+        g.remove(v6);
+        assertEquals(6, frozen.vertexSize());
+        try {
+            frozen.add("G");
+            fail("frozen graph accepted a vertex");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(6, frozen.vertexSize());
+        }
+    }
+
+    @Test
+    public void testIntGraph() {
+        IntGraph<String, String> g = new IntGraph<String, String>(true);
+        int a = g.addVertex("A");
+        int b = g.addVertex("B");
+        int c = g.addVertex("C");
+        int d = g.addVertex("D");
+        int ab = g.addEdge(a, b, 1.5, "ab");
+        g.addEdge(a, c, 2.0, "ac");
+        g.addEdge(c, d, 3.0, "cd");
+        g.addEdge(d, a, 4.0, "da");
+        assertEquals(4, g.edgeSize());
+        assertEquals(2, g.outDegree(a));
+        assertEquals(1, g.inDegree(a));
+        assertTrue(g.contains(a, b));
+        assertFalse(g.contains(b, a));
+        assertEquals(1.5, g.weight(ab), 0.0);
+
+        g.removeEdge(ab);
+        assertEquals(3, g.edgeSize());
+        assertFalse(g.contains(a, b));
+        assertEquals("da", g.edgeLabel(ab));
+        assertEquals(d, g.source(ab));
+
+        g.removeVertex(a);
+        assertEquals(3, g.vertexSize());
+        assertEquals(1, g.edgeSize());
+        assertEquals("D", g.vertexLabel(a));
+        assertTrue(g.contains(c, a));
+        assertEquals(3.0, g.weight(g.find(c, a)), 0.0);
+        assertEquals(0, g.outDegree(a));
+
+        IntGraph<String, String> u = new IntGraph<String, String>(false);
+        int x = u.addVertex("X");
+        int y = u.addVertex("Y");
+        int z = u.addVertex("Z");
+        u.addEdge(x, y, 1.0);
+        u.addEdge(z, x, 1.0);
+        assertEquals(2, u.degree(x));
+        assertTrue(u.contains(y, x));
+        assertEquals(x, u.successor(z, 0));
+    }
+
+    @Test
+    public void testRemoval() {
+        DirectedGraph<String, Integer> g =
+            new DirectedGraph<String, Integer>();
+        Graph<String, Integer>.Vertex a = g.add("A");
+        Graph<String, Integer>.Vertex b = g.add("B");
+        Graph<String, Integer>.Vertex c = g.add("C");
+        Graph<String, Integer>.Edge ab = g.add(a, b, 1);
+        g.add(a, b, 2);
+        g.add(a, b, 3);
+        Graph<String, Integer>.Edge ac = g.add(a, c, 4);
+        Graph<String, Integer>.Edge ca = g.add(c, a, 5);
+        g.add(b, c, 6);
+        g.remove(ab);
+        g.remove(ab);
+        assertEquals(5, g.edgeSize());
+        assertEquals(3, g.outDegree(a));
+        assertEquals(2, g.inDegree(b));
+        g.remove(a, b);
+        assertEquals(3, g.edgeSize());
+        assertFalse(g.contains(a, b));
+        assertTrue(g.contains(a, c, 4));
+        g.remove(c);
+        assertEquals(0, g.edgeSize());
+        assertEquals(2, g.vertexSize());
+        assertEquals(0, g.outDegree(a));
+        assertEquals(0, g.inDegree(a));
+        for (Graph<String, Integer>.Edge e: g.edges()) {
+            fail("edge " + e + " survived");
+        }
+        g.remove(ac);
+        g.remove(ca);
+        assertEquals(0, g.edgeSize());
+    }
+
+    @Test
+    public void testHubContains() {
+        UndirectedGraph<Integer, Integer> g =
+            new UndirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex hub = g.add(-1);
+        ArrayList<Graph<Integer, Integer>.Vertex> leaves =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        Integer two = 2;
+        for (int i = 0; i < 200; i += 1) {
+            leaves.add(g.add(i));
+            g.add(hub, leaves.get(i), 1);
+            if (i % 3 == 0) {
+                g.add(hub, leaves.get(i), two);
+            }
+        }
+        for (int i = 0; i < 200; i += 1) {
+            assertTrue(g.contains(hub, leaves.get(i)));
+            assertTrue(g.contains(leaves.get(i), hub));
+            assertEquals(i % 3 == 0, g.contains(hub, leaves.get(i), two));
+        }
+        for (int i = 0; i < 200; i += 2) {
+            g.remove(leaves.get(i), hub);
+        }
+        for (int i = 0; i < 200; i += 1) {
+            assertEquals(i % 2 == 1, g.contains(hub, leaves.get(i)));
+        }
+        assertEquals(100 + 33, g.degree(hub));
+        for (int i = 1; i < 195; i += 2) {
+            g.remove(hub, leaves.get(i));
+        }
+        assertEquals(4, g.degree(hub));
+        assertTrue(g.contains(hub, leaves.get(195), two));
+        assertTrue(g.contains(hub, leaves.get(199)));
+        assertFalse(g.contains(hub, leaves.get(1)));
+    }
+
+    @Test
+    public void testUndirectedNeighbors() {
+        UndirectedGraph<String, Integer> g =
+            new UndirectedGraph<String, Integer>();
+        Graph<String, Integer>.Vertex a = g.add("A");
+        Graph<String, Integer>.Vertex b = g.add("B");
+        Graph<String, Integer>.Vertex c = g.add("C");
+        Graph<String, Integer>.Vertex d = g.add("D");
+        g.add(a, b, 1);
+        g.add(c, a, 2);
+        g.add(a, d, 3);
+        String succs = "";
+        for (Graph<String, Integer>.Vertex v: g.successors(a)) {
+            succs += v;
+        }
+        assertEquals("BDC", succs);
+        String preds = "";
+        for (Graph<String, Integer>.Vertex v: g.predecessors(c)) {
+            preds += v;
+        }
+        assertEquals("A", preds);
+        int weight = 0;
+        for (Graph<String, Integer>.Edge e: g.inEdges(a)) {
+            weight += e.getLabel();
+        }
+        assertEquals(6, weight);
+        assertSame(a, g.outEdges(b).next().getV(b));
+    }
+
+    @Test
+    public void testDeepDepthFirst() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex first = g.add(0);
+        Graph<Integer, Integer>.Vertex prev = first;
+        for (int i = 1; i < 300000; i += 1) {
+            Graph<Integer, Integer>.Vertex next = g.add(i);
+            g.add(prev, next);
+            prev = next;
+        }
+        final int[] counts = new int[2];
+        Traversal<Integer, Integer> t = new Traversal<Integer, Integer>() {
+            @Override
+            protected void visit(Graph<Integer, Integer>.Vertex v) {
+                assertEquals(counts[0], (int) v.getLabel());
+                counts[0] += 1;
+            }
+            @Override
+            protected void postVisit(Graph<Integer, Integer>.Vertex v) {
+                counts[1] += 1;
+                assertEquals(300000 - counts[1], (int) v.getLabel());
+            }
+        };
+        t.depthFirstTraverse(g, first);
+        assertEquals(300000, counts[0]);
+        assertEquals(300000, counts[1]);
+        assertNull(t.finalVertex());
+    }
+
+    @Test
+    public void testDepthFirstRejectAndStop() {
+        UndirectedGraph<String, Integer> g =
+            new UndirectedGraph<String, Integer>();
+        Graph<String, Integer>.Vertex v1 = g.add("A");
+        Graph<String, Integer>.Vertex v2 = g.add("B");
+        Graph<String, Integer>.Vertex v3 = g.add("C");
+        Graph<String, Integer>.Vertex v4 = g.add("D");
+        Graph<String, Integer>.Vertex v5 = g.add("E");
+        g.add(v1, v2);
+        g.add(v1, v3);
+        g.add(v3, v4);
+        g.add(v4, v5);
+        PrintTraversal<String, Integer> t =
+            new PrintTraversal<String, Integer>() {
+                @Override
+                protected void preVisit(Graph<String, Integer>.Edge e,
+                                        Graph<String, Integer>.Vertex v0) {
+                    super.preVisit(e, v0);
+                    if (e.getV(v0).getLabel().equals("B")) {
+                        throw new RejectException();
+                    }
+                }
+                @Override
+                protected void visit(Graph<String, Integer>.Vertex v) {
+                    super.visit(v);
+                    if (v.getLabel().equals("D")) {
+                        throw new StopException();
+                    }
+                }
+            };
+        t.depthFirstTraverse(g, v1);
+        assertEquals("vA prB prC vC prD vD", t.getString());
+        assertSame(v4, t.finalVertex());
+        t.testString = "";
+        t.continueTraversing(v4);
+        assertEquals("", t.getString());
+        t.testString = "";
+        t.continueTraversing(v5);
+        assertEquals("vE pvE ", t.getString());
+    }
+
+    @Test
+    public void testVertexIndices() {
+        DirectedGraph<String, Integer> g =
+            new DirectedGraph<String, Integer>();
+        Graph<String, Integer>.Vertex a = g.add("A");
+        Graph<String, Integer>.Vertex b = g.add("B");
+        Graph<String, Integer>.Vertex c = g.add("C");
+        Graph<String, Integer>.Vertex d = g.add("D");
+        g.add(a, b);
+        g.add(b, c);
+        g.add(c, d);
+        assertEquals(2, g.index(c));
+        assertSame(d, g.vertex(3));
+        g.remove(b);
+        assertEquals(-1, g.index(b));
+        assertEquals(1, g.index(d));
+        assertSame(d, g.vertex(1));
+        assertEquals(3, g.vertexSize());
+
+        final int[] visits = new int[1];
+        Traversal<String, Integer> t = new Traversal<String, Integer>() {
+            @Override
+            protected void visit(Graph<String, Integer>.Vertex v) {
+                visits[0] += 1;
+            }
+        };
+        for (int i = 0; i < 5; i += 1) {
+            t.breadthFirstTraverse(g, c);
+        }
+        assertEquals(10, visits[0]);
+        t.depthFirstTraverse(g, a);
+        assertEquals(11, visits[0]);
+    }
+
+    @Test
+    public void testWideBreadthFirst() {
+        UndirectedGraph<Integer, Integer> g =
+            new UndirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex hub = g.add(-1);
+        for (int i = 0; i < 200000; i += 1) {
+            g.add(hub, g.add(i));
+        }
+        final ArrayList<Integer> order = new ArrayList<Integer>();
+        Traversal<Integer, Integer> t = new Traversal<Integer, Integer>() {
+            @Override
+            protected void visit(Graph<Integer, Integer>.Vertex v) {
+                order.add(v.getLabel());
+            }
+            @Override
+            protected void postVisit(Graph<Integer, Integer>.Vertex v) {
+                order.add(-2 - v.getLabel());
+            }
+        };
+        t.breadthFirstTraverse(g, hub);
+        assertEquals(400002, order.size());
+        assertEquals(-1, (int) order.get(0));
+        assertEquals(199999, (int) order.get(200000));
+        assertEquals(-1, (int) order.get(200001));
+        assertEquals(-2 - 199999, (int) order.get(400001));
+    }
+
+    /** Returns a random graph with N vertices labeled 0 .. N-1 and M
+     *  edges labeled with weights in 1 .. 10, generated from SEED. */
+    private static Graph<Integer, Integer> randomGraph(boolean directed,
+                                                       int n, int m,
+                                                       long seed) {
+        Graph<Integer, Integer> g;
+        if (directed) {
+            g = new DirectedGraph<Integer, Integer>();
+        } else {
+            g = new UndirectedGraph<Integer, Integer>();
+        }
+        Random rand = new Random(seed);
+        for (int i = 0; i < n; i += 1) {
+            g.add(i);
+        }
+        for (int i = 0; i < m; i += 1) {
+            g.add(g.vertex(rand.nextInt(n)), g.vertex(rand.nextInt(n)),
+                  1 + rand.nextInt(10));
+        }
+        return g;
+    }
+
+    /** Returns the hop distances from S in G, indexed by G.index, with -1
+     *  for unreachable vertices, as found by a breadth-first Traversal. */
+    private static int[] traversalHops(final Graph<Integer, Integer> g,
+                                       Graph<Integer, Integer>.Vertex s) {
+        final int[] hops = new int[g.vertexSize()];
+        Arrays.fill(hops, -1);
+        hops[g.index(s)] = 0;
+        Traversal<Integer, Integer> t = new Traversal<Integer, Integer>() {
+            @Override
+            protected void preVisit(Graph<Integer, Integer>.Edge e,
+                                    Graph<Integer, Integer>.Vertex v0) {
+                int w = g.index(e.getV(v0));
+                if (hops[w] < 0) {
+                    hops[w] = hops[g.index(v0)] + 1;
+                }
+            }
+        };
+        t.breadthFirstTraverse(g, s);
+        return hops;
+    }
+
+    @Test
+    public void testParallelHopDistances() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int trial = 0; trial < 4; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 20000, 50000, trial);
+            Graph<Integer, Integer>.Vertex s = g.vertex(trial);
+            assertArrayEquals(traversalHops(g, s),
+                              BreadthFirstSearch.hopDistances(g, s, pool));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDirectionOptimizingHopDistances() {
+        for (int trial = 0; trial < 6; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 5000, 2500 + 10000 * trial,
+                            trial);
+            Graph<Integer, Integer>.Vertex s = g.vertex(trial);
+            assertArrayEquals(traversalHops(g, s),
+                              BreadthFirstSearch.hopDistances(g, s));
+        }
+    }
+
+    /** Returns a vertex weighter for graphs whose vertices are labeled
+     *  0 .. N-1, in which vertices weigh infinity until set. */
+    private static Weighter<Integer> arrayWeighter(final int n) {
+        final double[] weights = new double[n];
+        Arrays.fill(weights, Double.POSITIVE_INFINITY);
+        return new Weighter<Integer>() {
+            public void setWeight(Integer v, double d) {
+                _weights[v] = d;
+            }
+            public double weight(Integer v) {
+                return _weights[v];
+            }
+            private double[] _weights = weights;
+        };
+    }
+
+    /** Returns the total weight of PATH, checking that it leads from V0 to
+     *  V1 in G. */
+    private static double pathWeight(Graph<Integer, Integer> g,
+                                     Graph<Integer, Integer>.Vertex v0,
+                                     Graph<Integer, Integer>.Vertex v1,
+                                     List<Graph<Integer, Integer>.Edge> path) {
+        double total = 0.0;
+        Graph<Integer, Integer>.Vertex v = v0;
+        for (Graph<Integer, Integer>.Edge e: path) {
+            if (g.isDirected()) {
+                assertSame(v, e.getV0());
+            }
+            v = e.getV(v);
+            total += e.getLabel();
+        }
+        assertSame(v1, v);
+        return total;
+    }
+
+    @Test
+    public void testBidirectionalShortestPath() {
+        for (int trial = 0; trial < 4; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 400, 1200, trial);
+            Random rand = new Random(trial);
+            for (int q = 0; q < 50; q += 1) {
+                Graph<Integer, Integer>.Vertex s = g.vertex(rand.nextInt(400));
+                Graph<Integer, Integer>.Vertex t = g.vertex(rand.nextInt(400));
+                List<Graph<Integer, Integer>.Edge> path =
+                    Graphs.bidirectionalShortestPath(g, s, t,
+                                                     Graphs.ZERO_DISTANCER,
+                                                     INT_WEIGHTS);
+                if (s == t) {
+                    assertEquals(0, path.size());
+                    continue;
+                }
+                List<Graph<Integer, Integer>.Edge> expected =
+                    Graphs.shortestPath(g, s, t, Graphs.ZERO_DISTANCER,
+                                        arrayWeighter(400), INT_WEIGHTS);
+                if (expected == null) {
+                    assertNull(path);
+                } else {
+                    assertEquals(pathWeight(g, s, t, expected),
+                                 pathWeight(g, s, t, path), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLandmarks() {
+        for (int trial = 0; trial < 4; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 400, 1500, trial);
+            Landmarks<Integer> alt = Landmarks.of(g, INT_WEIGHTS, 6);
+            assertEquals(6, alt.size());
+            Random rand = new Random(trial);
+            for (int q = 0; q < 50; q += 1) {
+                Graph<Integer, Integer>.Vertex s = g.vertex(rand.nextInt(400));
+                Graph<Integer, Integer>.Vertex t = g.vertex(rand.nextInt(400));
+                if (s == t) {
+                    continue;
+                }
+                List<Graph<Integer, Integer>.Edge> expected =
+                    Graphs.shortestPath(g, s, t, Graphs.ZERO_DISTANCER,
+                                        arrayWeighter(400), INT_WEIGHTS);
+                List<Graph<Integer, Integer>.Edge> path =
+                    Graphs.shortestPath(g, s, t, alt, arrayWeighter(400),
+                                        INT_WEIGHTS);
+                if (expected == null) {
+                    assertNull(path);
+                    continue;
+                }
+                double best = pathWeight(g, s, t, expected);
+                assertEquals(best, pathWeight(g, s, t, path), 0.0);
+                assertTrue(alt.dist(s.getLabel(), t.getLabel()) <= best);
+                path = Graphs.bidirectionalShortestPath(g, s, t, alt,
+                                                        INT_WEIGHTS);
+                assertEquals(best, pathWeight(g, s, t, path), 0.0);
+            }
+        }
+        UndirectedGraph<String, Integer> dup =
+            new UndirectedGraph<String, Integer>();
+        dup.add(dup.add("a"), dup.add("a"), 1);
+        try {
+            Landmarks.of(dup, INT_WEIGHTS, 2);
+            fail("duplicate labels accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("duplicate vertex label", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testContractionHierarchy() {
+        for (int trial = 0; trial < 4; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 300, 900, trial);
+            ContractionHierarchy<Integer, Integer> ch =
+                ContractionHierarchy.of(g, INT_WEIGHTS);
+            assertTrue(ch.shortcutCount() >= 0);
+            assertTrue(ch.memoryBytes() > 0);
+            assertTrue(ch.preprocessingNanos() > 0);
+            Random rand = new Random(trial);
+            for (int q = 0; q < 100; q += 1) {
+                Graph<Integer, Integer>.Vertex s = g.vertex(rand.nextInt(300));
+                Graph<Integer, Integer>.Vertex t = g.vertex(rand.nextInt(300));
+                List<Graph<Integer, Integer>.Edge> path = ch.shortestPath(s, t);
+                if (s == t) {
+                    assertEquals(0, path.size());
+                    assertEquals(0.0, ch.distance(s, t), 0.0);
+                    continue;
+                }
+                List<Graph<Integer, Integer>.Edge> expected =
+                    Graphs.shortestPath(g, s, t, Graphs.ZERO_DISTANCER,
+                                        arrayWeighter(300), INT_WEIGHTS);
+                if (expected == null) {
+                    assertNull(path);
+                    assertEquals(Double.POSITIVE_INFINITY, ch.distance(s, t),
+                                 0.0);
+                    continue;
+                }
+                double best = pathWeight(g, s, t, expected);
+                assertEquals(best, pathWeight(g, s, t, path), 0.0);
+                assertEquals(best, ch.distance(s, t), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testDeltaStepping() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int trial = 0; trial < 4; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 3000, 9000, trial);
+            Graph<Integer, Integer>.Vertex lone = g.add(3000);
+            g.add(g.vertex(5), g.vertex(6), 0);
+            g.add(g.vertex(6), g.vertex(5), 0);
+            Graph<Integer, Integer>.Vertex s = g.vertex(trial);
+            Weighter<Integer> expected = arrayWeighter(3001);
+            assertNull(Graphs.shortestPath(g, s, lone, Graphs.ZERO_DISTANCER,
+                                           expected, INT_WEIGHTS));
+            double[] deltas = { 0.0, 1.0, 100.0 };
+            for (double delta : deltas) {
+                ShortestPathTree<Integer, Integer> tree =
+                    ShortestPaths.fromSource(g, s, INT_WEIGHTS, delta, pool);
+                double[] dist = tree.distances();
+                int[] parents = tree.parents();
+                assertEquals(-1, parents[g.index(s)]);
+                for (int i = 0; i < g.vertexSize(); i += 1) {
+                    Graph<Integer, Integer>.Vertex v = g.vertex(i);
+                    assertEquals(expected.weight(v.getLabel()), dist[i], 0.0);
+                    List<Graph<Integer, Integer>.Edge> path = tree.pathTo(v);
+                    if (dist[i] == Double.POSITIVE_INFINITY) {
+                        assertNull(path);
+                        assertEquals(-1, parents[i]);
+                    } else {
+                        assertEquals(dist[i], pathWeight(g, s, v, path), 0.0);
+                    }
+                }
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDistanceMatrix() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int trial = 0; trial < 2; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 2000, 5000, trial);
+            Random rand = new Random(trial);
+            List<Graph<Integer, Integer>.Vertex> sources =
+                new ArrayList<Graph<Integer, Integer>.Vertex>();
+            List<Graph<Integer, Integer>.Vertex> targets =
+                new ArrayList<Graph<Integer, Integer>.Vertex>();
+            for (int k = 0; k < 40; k += 1) {
+                sources.add(g.vertex(rand.nextInt(2000)));
+                targets.add(g.vertex(rand.nextInt(2000)));
+            }
+            targets.add(targets.get(0));
+            double[] matrix =
+                ShortestPaths.distanceMatrix(g, sources, targets,
+                                             INT_WEIGHTS, pool);
+            assertEquals(40 * 41, matrix.length);
+            for (int i = 0; i < 40; i += 1) {
+                ShortestPathTree<Integer, Integer> tree =
+                    ShortestPaths.fromSource(g, sources.get(i), INT_WEIGHTS,
+                                             pool);
+                for (int j = 0; j < 41; j += 1) {
+                    assertEquals(tree.distance(targets.get(j)),
+                                 matrix[i * 41 + j], 0.0);
+                }
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testLocalShortestPath() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        for (int i = 0; i < 100000; i += 1) {
+            g.add(i);
+        }
+        for (int i = 0; i + 1 < 100000; i += 1) {
+            g.add(g.vertex(i), g.vertex(i + 1), 1);
+        }
+        final int[] writes = new int[1];
+        final Weighter<Integer> weights = arrayWeighter(100000);
+        Weighter<Integer> counter = new Weighter<Integer>() {
+            public void setWeight(Integer v, double d) {
+                writes[0] += 1;
+                weights.setWeight(v, d);
+            }
+            public double weight(Integer v) {
+                return weights.weight(v);
+            }
+        };
+        for (int q = 0; q < 1000; q += 1) {
+            writes[0] = 0;
+            List<Graph<Integer, Integer>.Edge> path =
+                Graphs.shortestPath(g, g.vertex(q), g.vertex(q + 2),
+                                    Graphs.ZERO_DISTANCER, counter,
+                                    INT_WEIGHTS);
+            assertEquals(2, path.size());
+            assertEquals(2.0, weights.weight(q + 2), 0.0);
+            assertTrue(writes[0] <= 4);
+        }
+        assertEquals(0, Graphs.shortestPath(g, g.vertex(7), g.vertex(7),
+                                            Graphs.ZERO_DISTANCER, counter,
+                                            INT_WEIGHTS).size());
+        assertNull(Graphs.shortestPath(g, g.vertex(9), g.vertex(8),
+                                       Graphs.ZERO_DISTANCER, counter,
+                                       INT_WEIGHTS));
+        assertEquals(Double.POSITIVE_INFINITY, weights.weight(8), 0.0);
+    }
+
+    @Test
+    public void testConcurrentShortestPaths() throws Exception {
+        final Graph<Integer, Integer> g =
+            randomGraph(true, 2000, 6000, 7);
+        final int queries = 100;
+        final double[] expected = new double[queries];
+        for (int q = 0; q < queries; q += 1) {
+            List<Graph<Integer, Integer>.Edge> path =
+                Graphs.shortestPath(g, g.vertex(q), g.vertex(1999 - q),
+                                    Graphs.ZERO_DISTANCER,
+                                    arrayWeighter(2000), INT_WEIGHTS);
+            expected[q] = path == null ? -1.0
+                : pathWeight(g, g.vertex(q), g.vertex(1999 - q), path);
+        }
+        final int[] mismatches = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int k = 0; k < threads.length; k += 1) {
+            threads[k] = new Thread() {
+                @Override
+                public void run() {
+                    for (int rep = 0; rep < 2; rep += 1) {
+                        for (int q = 0; q < queries; q += 1) {
+                            List<Graph<Integer, Integer>.Edge> path =
+                                Graphs.shortestPath(g, g.vertex(q),
+                                                    g.vertex(1999 - q),
+                                                    Graphs.ZERO_DISTANCER,
+                                                    INT_WEIGHTS);
+                            double w = 0.0;
+                            if (path == null) {
+                                w = -1.0;
+                            } else {
+                                for (Graph<Integer, Integer>.Edge e
+                                         : path) {
+                                    w += e.getLabel();
+                                }
+                            }
+                            if (w != expected[q]) {
+                                synchronized (mismatches) {
+                                    mismatches[0] += 1;
+                                }
+                            }
+                        }
+                    }
+                }
+            };
+            threads[k].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(0, mismatches[0]);
+    }
+
+    /** Adds to WEIGHTS the weight of every loopless path from V to T in
+     *  G that extends a path of weight SOFAR through the vertices in
+     *  VISITED. */
+    private static void simplePathWeights(Graph<Integer, Integer> g,
+                                          Graph<Integer, Integer>.Vertex v,
+                                          Graph<Integer, Integer>.Vertex t,
+                                          double soFar,
+                                          List<Graph<Integer, Integer>.Vertex>
+                                          visited,
+                                          List<Double> weights) {
+        if (v == t) {
+            weights.add(soFar);
+            return;
+        }
+        visited.add(v);
+        for (Graph<Integer, Integer>.Edge e: g.outEdges(v)) {
+            Graph<Integer, Integer>.Vertex w = e.getV(v);
+            if (!visited.contains(w)) {
+                simplePathWeights(g, w, t, soFar + e.getLabel(), visited,
+                                  weights);
+            }
+        }
+        visited.remove(visited.size() - 1);
+    }
+
+    @Test
+    public void testKShortestPaths() {
+        for (int trial = 0; trial < 6; trial += 1) {
+            Graph<Integer, Integer> g =
+                randomGraph(trial % 2 == 0, 9, 22, trial);
+            Graph<Integer, Integer>.Vertex s = g.vertex(0);
+            Graph<Integer, Integer>.Vertex t = g.vertex(8);
+            ArrayList<Double> all = new ArrayList<Double>();
+            simplePathWeights(g, s, t, 0.0,
+                              new ArrayList<Graph<Integer, Integer>.Vertex>(),
+                              all);
+            Collections.sort(all);
+            List<List<Graph<Integer, Integer>.Edge>> paths =
+                Graphs.kShortestPaths(g, s, t, 10, Graphs.ZERO_DISTANCER,
+                                      INT_WEIGHTS);
+            assertEquals(Math.min(10, all.size()), paths.size());
+            for (int k = 0; k < paths.size(); k += 1) {
+                List<Graph<Integer, Integer>.Edge> path = paths.get(k);
+                assertEquals(all.get(k), pathWeight(g, s, t, path), 0.0);
+                ArrayList<Graph<Integer, Integer>.Vertex> visited =
+                    new ArrayList<Graph<Integer, Integer>.Vertex>();
+                Graph<Integer, Integer>.Vertex v = s;
+                for (Graph<Integer, Integer>.Edge e: path) {
+                    assertTrue(!visited.contains(v));
+                    visited.add(v);
+                    v = e.getV(v);
+                }
+                for (int j = 0; j < k; j += 1) {
+                    assertTrue(!path.equals(paths.get(j)));
+                }
+            }
+        }
+    }
+
+    /** Returns the largest weight on the path from V0 to V1 in G through
+     *  the edges of the forest TREE, not returning through the edge FROM, or
+     *  -1 if there is no such path.  Used to check the cycle property of
+     *  minimum spanning forests. */
+    private static int maxOnTreePath(
+        Graph<Integer, Integer> g, HashSet<Graph<Integer, Integer>.Edge> tree,
+        Graph<Integer, Integer>.Vertex v0, Graph<Integer, Integer>.Vertex v1,
+        Graph<Integer, Integer>.Edge from) {
+        if (v0 == v1) {
+            return 0;
+        }
+        for (Graph<Integer, Integer>.Edge e : g.edges(v0)) {
+            if (e != from && tree.contains(e)) {
+                int rest = maxOnTreePath(g, tree, e.getV(v0), v1, e);
+                if (rest >= 0) {
+                    return Math.max(rest, e.getLabel());
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testMinimumSpanningForest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int trial = 0; trial < 3; trial += 1) {
+            int n = 3000;
+            UndirectedGraph<Integer, Integer> g =
+                (UndirectedGraph<Integer, Integer>)
+                randomGraph(false, n, 2000 + 3000 * trial, trial);
+            int components = 0;
+            int[] hops = new int[n];
+            Arrays.fill(hops, -1);
+            for (int v = 0; v < n; v += 1) {
+                if (hops[v] < 0) {
+                    components += 1;
+                    int[] reached = traversalHops(g, g.vertex(v));
+                    for (int w = 0; w < n; w += 1) {
+                        if (reached[w] >= 0) {
+                            hops[w] = reached[w];
+                        }
+                    }
+                }
+            }
+            List<Graph<Integer, Integer>.Edge> kruskal =
+                Graphs.minimumSpanningForest(g, INT_WEIGHTS);
+            List<Graph<Integer, Integer>.Edge> boruvka =
+                Graphs.minimumSpanningForest(g, INT_WEIGHTS, pool);
+            assertEquals(n - components, kruskal.size());
+            assertEquals(new HashSet<Graph<Integer, Integer>.Edge>(kruskal),
+                         new HashSet<Graph<Integer, Integer>.Edge>(boruvka));
+            int[] root = new int[n];
+            for (int v = 0; v < n; v += 1) {
+                root[v] = v;
+            }
+            for (Graph<Integer, Integer>.Edge e : kruskal) {
+                int a = g.index(e.getV0()), b = g.index(e.getV1());
+                while (root[a] != a) {
+                    a = root[a];
+                }
+                while (root[b] != b) {
+                    b = root[b];
+                }
+                assertTrue(a != b);
+                root[a] = b;
+            }
+            HashSet<Graph<Integer, Integer>.Edge> tree =
+                new HashSet<Graph<Integer, Integer>.Edge>(kruskal);
+            int checked = 0;
+            for (Graph<Integer, Integer>.Edge e : g.edges()) {
+                if (checked < 200 && !tree.contains(e)
+                    && e.getV0() != e.getV1()) {
+                    checked += 1;
+                    assertTrue(e.getLabel()
+                               >= maxOnTreePath(g, tree, e.getV0(),
+                                                e.getV1(), null));
+                }
+            }
+        }
+        int n = 40000;
+        UndirectedGraph<Integer, Integer> big =
+            (UndirectedGraph<Integer, Integer>)
+            randomGraph(false, n, 120000, 7);
+        List<Graph<Integer, Integer>.Edge> kruskal =
+            Graphs.minimumSpanningForest(big, INT_WEIGHTS);
+        List<Graph<Integer, Integer>.Edge> boruvka =
+            Graphs.minimumSpanningForest(big, INT_WEIGHTS, pool);
+        assertEquals(n - Components.count(Components.connected(big)),
+                     kruskal.size());
+        assertEquals(new HashSet<Graph<Integer, Integer>.Edge>(kruskal),
+                     new HashSet<Graph<Integer, Integer>.Edge>(boruvka));
+        pool.shutdown();
+    }
+
+    /** Returns true iff, for all vertex indices u and v, COMPONENTS puts
+     *  u and v in the same component exactly when each is reachable from
+     *  the other according to REACHABLE, where REACHABLE[u][v] tells
+     *  whether v is reachable from u. */
+    private static boolean sameComponents(int[] components,
+                                          boolean[][] reachable) {
+        int n = components.length;
+        for (int u = 0; u < n; u += 1) {
+            for (int v = 0; v < n; v += 1) {
+                boolean together = reachable[u][v] && reachable[v][u];
+                if (together != (components[u] == components[v])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Returns an N x N table telling which vertices of G are reachable
+     *  from which, found by breadth-first traversals. */
+    private static boolean[][] reachability(Graph<Integer, Integer> g) {
+        int n = g.vertexSize();
+        boolean[][] result = new boolean[n][];
+        for (int u = 0; u < n; u += 1) {
+            int[] hops = traversalHops(g, g.vertex(u));
+            result[u] = new boolean[n];
+            for (int v = 0; v < n; v += 1) {
+                result[u][v] = hops[v] >= 0;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testComponents() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int trial = 0; trial < 4; trial += 1) {
+            UndirectedGraph<Integer, Integer> u =
+                (UndirectedGraph<Integer, Integer>)
+                randomGraph(false, 300, 100 + 60 * trial, trial);
+            int[] seq = Components.connected(u);
+            assertTrue(sameComponents(seq, reachability(u)));
+            assertArrayEquals(seq, Components.connected(u, pool));
+            DirectedGraph<Integer, Integer> d =
+                (DirectedGraph<Integer, Integer>)
+                randomGraph(true, 300, 200 + 100 * trial, trial);
+            seq = Components.strong(d);
+            assertTrue(sameComponents(seq, reachability(d)));
+            assertArrayEquals(seq, Components.strong(d, pool));
+        }
+        for (int trial = 0; trial < 3; trial += 1) {
+            DirectedGraph<Integer, Integer> d =
+                (DirectedGraph<Integer, Integer>)
+                randomGraph(true, 30000, 30000 + 15000 * trial, trial);
+            int[] seq = Components.strong(d);
+            assertArrayEquals(seq, Components.strong(d, pool));
+            UndirectedGraph<Integer, Integer> u =
+                (UndirectedGraph<Integer, Integer>)
+                randomGraph(false, 30000, 10000 + 10000 * trial, trial);
+            seq = Components.connected(u);
+            assertArrayEquals(seq, Components.connected(u, pool));
+        }
+        DirectedGraph<Integer, Integer> ring =
+            new DirectedGraph<Integer, Integer>();
+        int n = 100000;
+        for (int i = 0; i < n; i += 1) {
+            ring.add(i);
+        }
+        for (int i = 0; i < n; i += 1) {
+            ring.add(ring.vertex(i), ring.vertex((i + 1) % n), 1);
+        }
+        ring.add(n);
+        ring.add(ring.vertex(n), ring.vertex(0), 1);
+        int[] comps = Components.strong(ring);
+        assertEquals(2, Components.count(comps));
+        assertArrayEquals(comps, Components.strong(ring, pool));
+        assertEquals(0, comps[n - 1]);
+        assertEquals(1, comps[n]);
+        pool.shutdown();
+    }
+
+    /** Returns a random DAG with N vertices and M edges, whose vertex
+     *  labels give a topological order, added to the graph in a random
+     *  order, using SEED. */
+    private static DirectedGraph<Integer, Integer> randomDag(int n, int m,
+                                                             long seed) {
+        Random rand = new Random(seed);
+        ArrayList<Integer> labels = new ArrayList<Integer>();
+        for (int i = 0; i < n; i += 1) {
+            labels.add(i);
+        }
+        Collections.shuffle(labels, rand);
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        HashMap<Integer, Graph<Integer, Integer>.Vertex> vertices =
+            new HashMap<Integer, Graph<Integer, Integer>.Vertex>();
+        for (int label : labels) {
+            vertices.put(label, g.add(label));
+        }
+        for (int k = 0; k < m; k += 1) {
+            int a = rand.nextInt(n), b = rand.nextInt(n);
+            if (a != b) {
+                g.add(vertices.get(Math.min(a, b)),
+                      vertices.get(Math.max(a, b)), 1);
+            }
+        }
+        return g;
+    }
+
+    @Test
+    public void testTopologicalSort() {
+        DirectedGraph<Integer, Integer> g = randomDag(2000, 6000, 1);
+        List<Graph<Integer, Integer>.Vertex> order = Dags.topologicalSort(g);
+        assertEquals(2000, order.size());
+        int[] position = new int[2000];
+        for (int i = 0; i < order.size(); i += 1) {
+            position[g.index(order.get(i))] = i;
+        }
+        for (Graph<Integer, Integer>.Edge e : g.edges()) {
+            assertTrue(position[g.index(e.getV0())]
+                       < position[g.index(e.getV1())]);
+        }
+        g.add(g.vertex(1999), g.vertex(0), 1);
+        g.add(g.vertex(5), g.vertex(5), 1);
+        try {
+            Dags.topologicalSort(g);
+            fail("cycle not detected");
+        } catch (CycleException excp) {
+            List<?> cycle = excp.cycle();
+            assertTrue(cycle.size() > 0);
+            for (int i = 0; i < cycle.size(); i += 1) {
+                @SuppressWarnings("unchecked")
+                Graph<Integer, Integer>.Vertex
+                    u = (Graph<Integer, Integer>.Vertex) cycle.get(i),
+                    v = (Graph<Integer, Integer>.Vertex)
+                    cycle.get((i + 1) % cycle.size());
+                assertTrue(g.contains(u, v));
+            }
+        }
+    }
+
+    @Test
+    public void testDagExecution() throws Exception {
+        final DirectedGraph<Integer, Integer> g = randomDag(3000, 9000, 2);
+        final AtomicIntegerArray runs = new AtomicIntegerArray(3000);
+        final AtomicBoolean ordered = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Dags.execute(g, new Dags.Job<Integer, Integer>() {
+                public void run(Graph<Integer, Integer>.Vertex v) {
+                    for (Graph<Integer, Integer>.Edge e : g.inEdges(v)) {
+                        if (runs.get(g.index(e.getV0())) != 1) {
+                            ordered.set(false);
+                        }
+                    }
+                    runs.incrementAndGet(g.index(v));
+                }
+            }, executor);
+        assertTrue(ordered.get());
+        for (int v = 0; v < 3000; v += 1) {
+            assertEquals(1, runs.get(v));
+        }
+
+        final Graph<Integer, Integer>.Vertex bad = g.vertex(0);
+        final AtomicBoolean ranAfterBad = new AtomicBoolean(false);
+        try {
+            Dags.execute(g, new Dags.Job<Integer, Integer>() {
+                    public void run(Graph<Integer, Integer>.Vertex v)
+                        throws Exception {
+                        if (v == bad) {
+                            throw new Exception("bad vertex");
+                        }
+                        for (Graph<Integer, Integer>.Edge e
+                                 : g.inEdges(v)) {
+                            if (e.getV0() == bad) {
+                                ranAfterBad.set(true);
+                            }
+                        }
+                    }
+                }, executor);
+            fail("job failure not reported");
+        } catch (ExecutionException excp) {
+            assertEquals("bad vertex", excp.getCause().getMessage());
+        }
+        assertTrue(!ranAfterBad.get());
+        executor.shutdown();
+
+        final DirectedGraph<Integer, Integer> chain =
+            new DirectedGraph<Integer, Integer>();
+        final int n = 200000;
+        for (int i = 0; i < 2 * n; i += 1) {
+            chain.add(i);
+        }
+        for (int i = 0; i + 1 < n; i += 1) {
+            chain.add(chain.vertex(i), chain.vertex(n + i), 1);
+            chain.add(chain.vertex(i), chain.vertex(i + 1), 1);
+        }
+        final int[] count = new int[1];
+        Dags.execute(chain, new Dags.Job<Integer, Integer>() {
+                public void run(Graph<Integer, Integer>.Vertex v) {
+                    count[0] += 1;
+                }
+            }, new Executor() {
+                public void execute(Runnable task) {
+                    task.run();
+                }
+            });
+        assertEquals(2 * n, count[0]);
+    }
+
+    /** Returns the PageRanks in G with damping factor D and preference
+     *  distribution P, by 200 iterations of the definition. */
+    private static double[] simplePageRank(Graph<Integer, Integer> g,
+                                           double d, double[] p) {
+        int n = g.vertexSize();
+        double[] rank = p.clone();
+        for (int iter = 0; iter < 200; iter += 1) {
+            double dangling = 0.0;
+            for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+                if (g.outDegree(v) == 0) {
+                    dangling += rank[g.index(v)];
+                }
+            }
+            double[] next = new double[n];
+            for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+                int i = g.index(v);
+                next[i] = (1.0 - d + d * dangling) * p[i];
+                for (Graph<Integer, Integer>.Edge e : g.inEdges(v)) {
+                    Graph<Integer, Integer>.Vertex u = e.getV0();
+                    next[i] += d * rank[g.index(u)] / g.outDegree(u);
+                }
+            }
+            rank = next;
+        }
+        return rank;
+    }
+
+    @Test
+    public void testPageRank() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Graph<Integer, Integer> g = randomGraph(true, 10000, 25000, 3);
+        int n = g.vertexSize();
+        double[] uniform = new double[n];
+        Arrays.fill(uniform, 1.0 / n);
+        double[] expected = simplePageRank(g, 0.85, uniform);
+        double[] rank = PageRank.rank(g, 0.85, 1e-12, 200, pool);
+        double total = 0.0;
+        for (int v = 0; v < n; v += 1) {
+            assertEquals(expected[v], rank[v], 1e-10);
+            total += rank[v];
+        }
+        assertEquals(1.0, total, 1e-9);
+
+        List<Graph<Integer, Integer>.Vertex> seeds =
+            Arrays.asList(g.vertex(0), g.vertex(1), g.vertex(1));
+        double[] preference = new double[n];
+        preference[0] = 1.0 / 3;
+        preference[1] = 2.0 / 3;
+        expected = simplePageRank(g, 0.5, preference);
+        rank = PageRank.personalized(g, seeds, 0.5, 1e-12, 200, pool);
+        for (int v = 0; v < n; v += 1) {
+            assertEquals(expected[v], rank[v], 1e-10);
+        }
+        pool.shutdown();
+    }
+
+    /** Sets PATHS[u][v] to the number of shortest paths (in edges) from
+     *  u to v in G, and DIST[u][v] to their length, or -1 if there is
+     *  none, by a breadth-first search from each vertex. */
+    private static void countShortestPaths(Graph<Integer, Integer> g,
+                                           int[][] dist, double[][] paths) {
+        int n = g.vertexSize();
+        for (int s = 0; s < n; s += 1) {
+            dist[s] = new int[n];
+            paths[s] = new double[n];
+            Arrays.fill(dist[s], -1);
+            dist[s][s] = 0;
+            paths[s][s] = 1.0;
+            ArrayList<Integer> queue = new ArrayList<Integer>();
+            queue.add(s);
+            for (int head = 0; head < queue.size(); head += 1) {
+                Graph<Integer, Integer>.Vertex v = g.vertex(queue.get(head));
+                for (Graph<Integer, Integer>.Edge e : g.outEdges(v)) {
+                    int w = g.index(e.getV(v));
+                    int d = dist[s][g.index(v)] + 1;
+                    if (dist[s][w] < 0) {
+                        dist[s][w] = d;
+                        queue.add(w);
+                    }
+                    if (dist[s][w] == d) {
+                        paths[s][w] += paths[s][g.index(v)];
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCentrality() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int trial = 0; trial < 2; trial += 1) {
+            boolean directed = trial == 0;
+            Graph<Integer, Integer> g = randomGraph(directed, 80, 200, trial);
+            int n = g.vertexSize();
+            int[][] dist = new int[n][];
+            double[][] paths = new double[n][];
+            countShortestPaths(g, dist, paths);
+            double[] between = new double[n],
+                close = new double[n], harmonic = new double[n];
+            for (int s = 0; s < n; s += 1) {
+                int reached = 0, total = 0;
+                for (int t = 0; t < n; t += 1) {
+                    if (t != s && dist[s][t] > 0) {
+                        reached += 1;
+                        total += dist[s][t];
+                        harmonic[s] += 1.0 / dist[s][t];
+                    }
+                    for (int v = 0; v < n; v += 1) {
+                        if (v != s && v != t && dist[s][t] > 0
+                            && dist[s][v] > 0 && dist[v][t] > 0
+                            && dist[s][v] + dist[v][t] == dist[s][t]) {
+                            between[v] +=
+                                paths[s][v] * paths[v][t] / paths[s][t];
+                        }
+                    }
+                }
+                close[s] = total == 0 ? 0.0 : (double) reached / total;
+            }
+            double[] brandes = Centrality.betweenness(g, pool);
+            double[] closeness = Centrality.closeness(g, pool);
+            double[] harmonicSums = Centrality.harmonic(g, pool);
+            for (int v = 0; v < n; v += 1) {
+                assertEquals((directed ? 1.0 : 0.5) * between[v],
+                             brandes[v], 1e-9);
+                assertEquals(close[v], closeness[v], 1e-12);
+                assertEquals(harmonic[v], harmonicSums[v], 1e-12);
+            }
+            int samples = Centrality.sampleSize(n, 0.05, 0.01);
+            double[] approx =
+                Centrality.approximateBetweenness(g, samples, trial, pool);
+            for (int v = 0; v < n; v += 1) {
+                assertTrue(Math.abs(approx[v] - brandes[v])
+                           <= 0.05 * n * (n - 2));
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTriangles() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int n = 300;
+        UndirectedGraph<Integer, Integer> g =
+            (UndirectedGraph<Integer, Integer>)
+            randomGraph(false, n, 4000, 5);
+        boolean[][] adjacent = new boolean[n][n];
+        for (Graph<Integer, Integer>.Edge e : g.edges()) {
+            int u = g.index(e.getV0()), v = g.index(e.getV1());
+            if (u != v) {
+                adjacent[u][v] = adjacent[v][u] = true;
+            }
+        }
+        long[] expected = new long[n];
+        long total = 0, wedges = 0;
+        for (int u = 0; u < n; u += 1) {
+            for (int v = u + 1; v < n; v += 1) {
+                for (int w = v + 1; w < n; w += 1) {
+                    if (adjacent[u][v] && adjacent[v][w] && adjacent[u][w]) {
+                        expected[u] += 1;
+                        expected[v] += 1;
+                        expected[w] += 1;
+                        total += 1;
+                    }
+                }
+            }
+        }
+        Triangles triangles = Triangles.count(g, pool);
+        assertEquals(total, triangles.total());
+        double[] clustering = triangles.clustering();
+        for (int v = 0; v < n; v += 1) {
+            assertEquals(expected[v], triangles.perVertex()[v]);
+            int d = 0;
+            for (int w = 0; w < n; w += 1) {
+                d += adjacent[v][w] ? 1 : 0;
+            }
+            wedges += d * (d - 1) / 2;
+            assertEquals(d < 2 ? 0.0 : 2.0 * expected[v] / (d * (d - 1)),
+                         clustering[v], 1e-12);
+        }
+        assertEquals(3.0 * total / wedges, triangles.transitivity(), 1e-12);
+
+        n = 20000;
+        g = (UndirectedGraph<Integer, Integer>)
+            randomGraph(false, n, 200000, 6);
+        ArrayList<HashSet<Integer>> neighbors =
+            new ArrayList<HashSet<Integer>>();
+        for (int v = 0; v < n; v += 1) {
+            neighbors.add(new HashSet<Integer>());
+        }
+        for (Graph<Integer, Integer>.Edge e : g.edges()) {
+            int u = g.index(e.getV0()), v = g.index(e.getV1());
+            if (u != v) {
+                neighbors.get(u).add(v);
+                neighbors.get(v).add(u);
+            }
+        }
+        expected = new long[n];
+        total = 0;
+        for (int u = 0; u < n; u += 1) {
+            for (int v : neighbors.get(u)) {
+                if (v <= u) {
+                    continue;
+                }
+                for (int w : neighbors.get(v)) {
+                    if (w > v && neighbors.get(u).contains(w)) {
+                        expected[u] += 1;
+                        expected[v] += 1;
+                        expected[w] += 1;
+                        total += 1;
+                    }
+                }
+            }
+        }
+        triangles = Triangles.count(g, pool);
+        assertEquals(total, triangles.total());
+        assertArrayEquals(expected, triangles.perVertex());
+        pool.shutdown();
+    }
+
 }